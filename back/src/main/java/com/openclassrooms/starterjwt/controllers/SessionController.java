@@ -4,49 +4,158 @@ package com.openclassrooms.starterjwt.controllers;
 import com.openclassrooms.starterjwt.dto.SessionDto;
 import com.openclassrooms.starterjwt.mapper.SessionMapper;
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.payload.request.BulkEnrollmentRequest;
+import com.openclassrooms.starterjwt.payload.request.SessionBatchRequest;
+import com.openclassrooms.starterjwt.payload.response.EnrollmentResult;
+import com.openclassrooms.starterjwt.repository.SessionSummary;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import com.openclassrooms.starterjwt.services.Participation;
+import com.openclassrooms.starterjwt.services.SessionCursor;
+import com.openclassrooms.starterjwt.services.SessionEnrollmentService;
+import com.openclassrooms.starterjwt.services.SessionExportFormat;
+import com.openclassrooms.starterjwt.services.SessionExportService;
 import com.openclassrooms.starterjwt.services.SessionService;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.util.Date;
 import java.util.List;
 
-@CrossOrigin(origins = "*", maxAge = 3600)
+@CrossOrigin(origins = "*", maxAge = 3600, exposedHeaders = SessionController.NEXT_CURSOR_HEADER)
 @RestController
 @RequestMapping("/api/session")
 @Log4j2
 public class SessionController {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final SessionMapper sessionMapper;
     private final SessionService sessionService;
+    private final SessionExportService sessionExportService;
+    private final SessionEnrollmentService sessionEnrollmentService;
+    private final int defaultPageSize;
+    private final int maxPageSize;
 
 
     public SessionController(SessionService sessionService,
-                             SessionMapper sessionMapper) {
+                             SessionMapper sessionMapper,
+                             SessionExportService sessionExportService,
+                             SessionEnrollmentService sessionEnrollmentService,
+                             @Value("${oc.app.sessionPageDefaultSize}") int defaultPageSize,
+                             @Value("${oc.app.sessionPageMaxSize}") int maxPageSize) {
         this.sessionMapper = sessionMapper;
         this.sessionService = sessionService;
+        this.sessionExportService = sessionExportService;
+        this.sessionEnrollmentService = sessionEnrollmentService;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
     }
 
+    /**
+     * Returns a session with its participants. The ETag is read before the
+     * session, so an unchanged session gets a 304 without being loaded. The
+     * session is read as a projection, without any managed entity.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<?> findById(@PathVariable("id") String id) {
+    public ResponseEntity<?> findById(@PathVariable("id") String id, WebRequest request) {
         try {
-            Session session = this.sessionService.getById(Long.valueOf(id));
+            String eTag = this.sessionService.getETag(Long.valueOf(id));
+            if (eTag == null) {
+                return ResponseEntity.notFound().build();
+            }
+            if (request.checkNotModified(eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+
+            SessionDto session = this.sessionMapper.toDetailDto(this.sessionService.getDetailById(Long.valueOf(id)));
 
             if (session == null) {
                 return ResponseEntity.notFound().build();
             }
 
-            return ResponseEntity.ok().body(this.sessionMapper.toDto(session));
+            return ResponseEntity.ok().eTag(eTag).cacheControl(CacheControl.noCache()).body(session);
         } catch (NumberFormatException e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
+    /**
+     * Lists the session summaries from the most recent, one page at a time.
+     * When there are more sessions, the cursor of the next page is returned in
+     * the {@value #NEXT_CURSOR_HEADER} header. Participants are only counted,
+     * the full roster is returned by {@link #findById(String)}. The ETag is
+     * derived from the page read, so an unchanged page gets a 304 without being
+     * mapped nor sent.
+     */
     @GetMapping()
-    public ResponseEntity<?> findAll() {
-        List<Session> sessions = this.sessionService.findAll();
+    public ResponseEntity<?> findAll(@RequestParam(value = "cursor", required = false) String cursor,
+                                     @RequestParam(value = "size", required = false) Integer size,
+                                     @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date from,
+                                     @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date to,
+                                     @RequestParam(value = "teacherId", required = false) Long teacherId,
+                                     WebRequest request) {
+        if (size != null && size < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        int pageSize = size == null ? defaultPageSize : Math.min(size, maxPageSize);
 
-        return ResponseEntity.ok().body(this.sessionMapper.toDto(sessions));
+        try {
+            SessionCursor after = cursor != null ? SessionCursor.decode(cursor) : null;
+            Long userId = currentUserId();
+
+            // Read one more session than the page to know whether there is a next page
+            List<SessionSummary> sessions = this.sessionService.findPage(after, pageSize + 1, from, to, teacherId, userId);
+
+            String nextCursor = null;
+            if (sessions.size() > pageSize) {
+                sessions = sessions.subList(0, pageSize);
+                nextCursor = SessionCursor.after(sessions.get(pageSize - 1)).encode();
+            }
+
+            String eTag = this.sessionService.getCollectionETag(sessions, nextCursor);
+            if (request.checkNotModified(eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(eTag).cacheControl(CacheControl.noCache());
+            if (nextCursor != null) {
+                response.header(NEXT_CURSOR_HEADER, nextCursor);
+            }
+
+            return response.body(this.sessionMapper.toSummaryDto(sessions));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Streams every session with its participant ids, as NDJSON (default) or
+     * CSV, without loading the catalog in memory.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(value = "format", defaultValue = "ndjson") String format) {
+        try {
+            SessionExportFormat exportFormat = SessionExportFormat.fromName(format);
+            StreamingResponseBody body = out -> this.sessionExportService.export(exportFormat, out);
+
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"sessions." + exportFormat.getExtension() + "\"")
+                    .body(body);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @PostMapping()
@@ -59,6 +168,17 @@ public class SessionController {
         return ResponseEntity.ok().body(this.sessionMapper.toDto(session));
     }
 
+    /**
+     * Creates at most {@value SessionBatchRequest#MAX_SESSIONS} sessions in one
+     * transaction, with their inserts sent as JDBC batches.
+     */
+    @PostMapping("batch")
+    public ResponseEntity<?> createAll(@Valid @RequestBody SessionBatchRequest request) {
+        List<Session> sessions = this.sessionService.createAll(this.sessionMapper.toEntity(request.getSessions()));
+
+        return ResponseEntity.ok().body(this.sessionMapper.toDto(sessions));
+    }
+
     @PutMapping("{id}")
     public ResponseEntity<?> update(@PathVariable("id") String id, @Valid @RequestBody SessionDto sessionDto) {
         try {
@@ -73,9 +193,7 @@ public class SessionController {
     @DeleteMapping("{id}")
     public ResponseEntity<?> save(@PathVariable("id") String id) {
         try {
-            Session session = this.sessionService.getById(Long.valueOf(id));
-
-            if (session == null) {
+            if (!this.sessionService.exists(Long.valueOf(id))) {
                 return ResponseEntity.notFound().build();
             }
 
@@ -89,14 +207,45 @@ public class SessionController {
     @PostMapping("{id}/participate/{userId}")
     public ResponseEntity<?> participate(@PathVariable("id") String id, @PathVariable("userId") String userId) {
         try {
-            this.sessionService.participate(Long.parseLong(id), Long.parseLong(userId));
+            Participation participation = this.sessionService.participate(Long.parseLong(id), Long.parseLong(userId));
 
+            if (participation == Participation.WAITLISTED) {
+                return ResponseEntity.accepted().build();
+            }
             return ResponseEntity.ok().build();
         } catch (NumberFormatException e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
+    /**
+     * Enrolls the given users in the session, with one result per distinct user.
+     */
+    @PostMapping("{id}/participate")
+    public ResponseEntity<?> participateAll(@PathVariable("id") String id, @Valid @RequestBody BulkEnrollmentRequest request) {
+        try {
+            List<EnrollmentResult> results = this.sessionEnrollmentService.enrollUsers(Long.parseLong(id), request.getIds());
+
+            return ResponseEntity.ok().body(results);
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Enrolls the user in the given sessions, with one result per distinct session.
+     */
+    @PostMapping("participate/{userId}")
+    public ResponseEntity<?> participateInAll(@PathVariable("userId") String userId, @Valid @RequestBody BulkEnrollmentRequest request) {
+        try {
+            List<EnrollmentResult> results = this.sessionEnrollmentService.enrollSessions(Long.parseLong(userId), request.getIds());
+
+            return ResponseEntity.ok().body(results);
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @DeleteMapping("{id}/participate/{userId}")
     public ResponseEntity<?> noLongerParticipate(@PathVariable("id") String id, @PathVariable("userId") String userId) {
         try {
@@ -107,4 +256,12 @@ public class SessionController {
             return ResponseEntity.badRequest().build();
         }
     }
+
+    private Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserDetailsImpl) {
+            return ((UserDetailsImpl) authentication.getPrincipal()).getId();
+        }
+        return null;
+    }
 }
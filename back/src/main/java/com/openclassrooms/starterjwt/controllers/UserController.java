@@ -1,28 +1,51 @@
 package com.openclassrooms.starterjwt.controllers;
 
+import com.openclassrooms.starterjwt.mapper.SessionMapper;
 import com.openclassrooms.starterjwt.mapper.UserMapper;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionSummary;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import com.openclassrooms.starterjwt.services.SessionCursor;
+import com.openclassrooms.starterjwt.services.SessionPeriod;
+import com.openclassrooms.starterjwt.services.SessionService;
 import com.openclassrooms.starterjwt.services.UserService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Date;
+import java.util.List;
 import java.util.Objects;
 
-@CrossOrigin(origins = "*", maxAge = 3600)
+@CrossOrigin(origins = "*", maxAge = 3600, exposedHeaders = SessionController.NEXT_CURSOR_HEADER)
 @RestController
 @RequestMapping("/api/user")
 public class UserController {
     private final UserMapper userMapper;
     private final UserService userService;
+    private final SessionMapper sessionMapper;
+    private final SessionService sessionService;
+    private final int defaultPageSize;
+    private final int maxPageSize;
 
 
     public UserController(UserService userService,
-                             UserMapper userMapper) {
+                             UserMapper userMapper,
+                             SessionService sessionService,
+                             SessionMapper sessionMapper,
+                             @Value("${oc.app.sessionPageDefaultSize}") int defaultPageSize,
+                             @Value("${oc.app.sessionPageMaxSize}") int maxPageSize) {
         this.userMapper = userMapper;
         this.userService = userService;
+        this.sessionMapper = sessionMapper;
+        this.sessionService = sessionService;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
     }
 
     @GetMapping("/{id}")
@@ -40,6 +63,52 @@ public class UserController {
         }
     }
 
+    /**
+     * Lists a page of the sessions the user participates in, for the user
+     * themselves or an admin. The next page cursor is returned in the
+     * {@value SessionController#NEXT_CURSOR_HEADER} header.
+     */
+    @GetMapping("/{id}/sessions")
+    public ResponseEntity<?> findSessions(@PathVariable("id") String id,
+                                          @RequestParam(value = "period", required = false) String period,
+                                          @RequestParam(value = "cursor", required = false) String cursor,
+                                          @RequestParam(value = "size", required = false) Integer size,
+                                          @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date from,
+                                          @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date to) {
+        if (size != null && size < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        int pageSize = size == null ? defaultPageSize : Math.min(size, maxPageSize);
+
+        try {
+            Long userId = Long.valueOf(id);
+            SessionPeriod sessionPeriod = period != null ? SessionPeriod.fromName(period) : null;
+            SessionCursor after = cursor != null ? SessionCursor.decode(cursor) : null;
+
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication == null || !(authentication.getPrincipal() instanceof UserDetailsImpl)) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+            }
+            UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+            if (!userId.equals(userDetails.getId()) && !Boolean.TRUE.equals(userDetails.getAdmin())) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+            }
+
+            // Read one more session than the page to know whether there is a next page
+            List<SessionSummary> sessions = this.sessionService.findUserPage(userId, sessionPeriod, after, pageSize + 1, from, to);
+
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (sessions.size() > pageSize) {
+                sessions = sessions.subList(0, pageSize);
+                response.header(SessionController.NEXT_CURSOR_HEADER, SessionCursor.after(sessions.get(pageSize - 1)).encode());
+            }
+
+            return response.body(this.sessionMapper.toSummaryDto(sessions));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @DeleteMapping("{id}")
     public ResponseEntity<?> save(@PathVariable("id") String id) {
         try {
@@ -1,19 +1,30 @@
 package com.openclassrooms.starterjwt.mapper;
 
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.dto.SessionSummaryDto;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionDetail;
+import com.openclassrooms.starterjwt.repository.SessionSummary;
 import com.openclassrooms.starterjwt.services.TeacherService;
 import com.openclassrooms.starterjwt.services.UserService;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.Mappings;
+import org.mapstruct.Named;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Component
@@ -27,11 +38,59 @@ public abstract class SessionMapper implements EntityMapper<SessionDto, Session>
 
     @Mappings({
             @Mapping(source = "description", target = "description"),
-            @Mapping(target = "teacher", expression = "java(sessionDto.getTeacher_id() != null ? this.teacherService.findById(sessionDto.getTeacher_id()) : null)"),
-            @Mapping(target = "users", expression = "java(Optional.ofNullable(sessionDto.getUsers()).orElseGet(Collections::emptyList).stream().map(user_id -> { User user = this.userService.findById(user_id); if (user != null) { return user; } return null; }).collect(Collectors.toList()))"),
+            @Mapping(target = "teacher", expression = "java(resolveTeacher(sessionDto.getTeacher_id()))"),
+            @Mapping(target = "users", expression = "java(this.userService.findAllById(Optional.ofNullable(sessionDto.getUsers()).orElseGet(Collections::emptyList)))"),
+            @Mapping(target = "version", ignore = true),
+            @Mapping(target = "seatsTaken", ignore = true),
     })
     public abstract Session toEntity(SessionDto sessionDto);
 
+    @Named("withoutRelations")
+    @Mappings({
+            @Mapping(target = "teacher", ignore = true),
+            @Mapping(target = "users", ignore = true),
+            @Mapping(target = "version", ignore = true),
+            @Mapping(target = "seatsTaken", ignore = true),
+    })
+    protected abstract Session toEntityWithoutRelations(SessionDto sessionDto);
+
+    /**
+     * Maps a batch of sessions with one query for all their teachers and one for
+     * all their participants, instead of two per session.
+     */
+    @Override
+    public List<Session> toEntity(List<SessionDto> sessionDtos) {
+        Map<Long, Teacher> teachers = this.teacherService.findAllById(sessionDtos.stream()
+                        .map(SessionDto::getTeacher_id)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toList())).stream()
+                .collect(Collectors.toMap(Teacher::getId, Function.identity()));
+        Map<Long, User> users = this.userService.findAllById(sessionDtos.stream()
+                        .filter(sessionDto -> sessionDto.getUsers() != null)
+                        .flatMap(sessionDto -> sessionDto.getUsers().stream())
+                        .collect(Collectors.toList())).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        return sessionDtos.stream()
+                .map(sessionDto -> toEntityWithoutRelations(sessionDto)
+                        .setTeacher(sessionDto.getTeacher_id() != null ? teachers.get(sessionDto.getTeacher_id()) : null)
+                        .setUsers(new LinkedHashSet<>(Optional.ofNullable(sessionDto.getUsers()).orElseGet(Collections::emptyList)).stream()
+                                .map(users::get)
+                                .collect(Collectors.toList())))
+                .collect(Collectors.toList());
+    }
+
+    protected Teacher resolveTeacher(Long teacherId) {
+        if (teacherId == null) {
+            return null;
+        }
+        Teacher teacher = this.teacherService.findById(teacherId);
+        if (teacher == null) {
+            throw new BadRequestException("Unknown teacher id: " + teacherId);
+        }
+        return teacher;
+    }
+
 
     @Mappings({
             @Mapping(source = "description", target = "description"),
@@ -39,4 +98,20 @@ public abstract class SessionMapper implements EntityMapper<SessionDto, Session>
             @Mapping(target = "users", expression = "java(Optional.ofNullable(session.getUsers()).orElseGet(Collections::emptyList).stream().map(u -> u.getId()).collect(Collectors.toList()))"),
     })
     public abstract SessionDto toDto(Session session);
+
+    public SessionDto toDetailDto(SessionDetail detail) {
+        if (detail == null) {
+            return null;
+        }
+        return new SessionDto(detail.getId(), detail.getName(), detail.getDate(), detail.getTeacherId(), detail.getDescription(),
+                detail.getUsers(), detail.getCapacity(), detail.getCreatedAt(), detail.getUpdatedAt());
+    }
+
+    @Mappings({
+            @Mapping(source = "teacherId", target = "teacher_id"),
+            @Mapping(target = "participating", expression = "java(summary.getCallerParticipations() != null && summary.getCallerParticipations() > 0)"),
+    })
+    public abstract SessionSummaryDto toSummaryDto(SessionSummary summary);
+
+    public abstract List<SessionSummaryDto> toSummaryDto(List<SessionSummary> summaries);
 }
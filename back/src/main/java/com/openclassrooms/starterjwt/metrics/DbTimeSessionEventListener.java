@@ -0,0 +1,56 @@
+package com.openclassrooms.starterjwt.metrics;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * Adds the time of the statements prepared and executed by a Hibernate session
+ * to the {@link RequestDbUsage} of the request. Hibernate creates one listener
+ * per session from {@code hibernate.session.events.auto}. Statements sent
+ * through a JdbcTemplate are not seen by Hibernate and are not counted.
+ */
+public class DbTimeSessionEventListener extends BaseSessionEventListener {
+    private static final long serialVersionUID = 1L;
+
+    private long prepareStart = -1;
+
+    private long executeStart = -1;
+
+    private long batchStart = -1;
+
+    @Override
+    public void jdbcPrepareStatementStart() {
+        prepareStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcPrepareStatementEnd() {
+        prepareStart = record(prepareStart);
+    }
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        executeStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        executeStart = record(executeStart);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batchStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        batchStart = record(batchStart);
+    }
+
+    private static long record(long start) {
+        if (start >= 0) {
+            RequestDbUsage.addTime(System.nanoTime() - start);
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,23 @@
+package com.openclassrooms.starterjwt.metrics;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Records a timer for every bean method, or every method of a bean class,
+ * annotated with {@link io.micrometer.core.annotation.Timed}. A service opts in
+ * with {@code @Timed("service.calls")} on the class, which tags each timer with
+ * the class and method names. The percentiles and histogram of a timer are set
+ * by name in the {@code management.metrics.distribution} properties.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
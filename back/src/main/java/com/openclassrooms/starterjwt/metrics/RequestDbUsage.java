@@ -0,0 +1,69 @@
+package com.openclassrooms.starterjwt.metrics;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Statements issued by the current thread, and the time spent in them, since
+ * the start of the request it is serving. Nothing is recorded on threads that
+ * are not serving a request.
+ */
+public final class RequestDbUsage {
+    private static final ThreadLocal<RequestDbUsage> CURRENT = new ThreadLocal<>();
+
+    private static final RequestDbUsage NONE = new RequestDbUsage();
+
+    private final Map<String, Integer> statementsBySql = new HashMap<>();
+
+    private int statements;
+
+    private long nanos;
+
+    private RequestDbUsage() {
+    }
+
+    public static void start() {
+        CURRENT.set(new RequestDbUsage());
+    }
+
+    public static void addStatement(String sql) {
+        RequestDbUsage usage = CURRENT.get();
+        if (usage != null) {
+            usage.statements++;
+            usage.statementsBySql.merge(sql, 1, Integer::sum);
+        }
+    }
+
+    public static void addTime(long nanos) {
+        RequestDbUsage usage = CURRENT.get();
+        if (usage != null) {
+            usage.nanos += nanos;
+        }
+    }
+
+    /**
+     * Ends the request and returns what it used.
+     */
+    public static RequestDbUsage stop() {
+        RequestDbUsage usage = CURRENT.get();
+        CURRENT.remove();
+        return usage != null ? usage : NONE;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    /**
+     * The statement issued the most times, the usual sign of an N+1 query, or
+     * {@code null} when no statement was issued.
+     */
+    public Map.Entry<String, Integer> getMostRepeated() {
+        return statementsBySql.isEmpty() ? null : Collections.max(statementsBySql.entrySet(), Map.Entry.comparingByValue());
+    }
+}
@@ -0,0 +1,84 @@
+package com.openclassrooms.starterjwt.metrics;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.web.servlet.WebMvcTags;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Records the database time and the statement count of each request in the
+ * "http.server.requests.db" timer and the "http.server.requests.db.statements"
+ * summary, tagged like "http.server.requests" with the method and the route.
+ * A request issuing more than {@code oc.app.requestStatementBudget} statements
+ * is logged with its most repeated one. It runs before the security filters,
+ * so that the principal lookups are counted.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class RequestDbUsageFilter extends OncePerRequestFilter {
+    /**
+     * Request attribute holding the {@link RequestDbUsage} once the request is served.
+     */
+    public static final String USAGE_ATTRIBUTE = RequestDbUsageFilter.class.getName() + ".usage";
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestDbUsageFilter.class);
+
+    private final MeterRegistry meterRegistry;
+
+    private final int statementBudget;
+
+    public RequestDbUsageFilter(MeterRegistry meterRegistry, @Value("${oc.app.requestStatementBudget}") int statementBudget) {
+        this.meterRegistry = meterRegistry;
+        this.statementBudget = statementBudget;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RequestDbUsage.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestDbUsage usage = RequestDbUsage.stop();
+            request.setAttribute(USAGE_ATTRIBUTE, usage);
+
+            Tag uri = WebMvcTags.uri(request, response);
+            Tags tags = Tags.of(WebMvcTags.method(request), uri);
+            Timer.builder("http.server.requests.db")
+                    .description("Time spent in database statements while serving the request")
+                    .tags(tags)
+                    .register(meterRegistry)
+                    .record(usage.getNanos(), TimeUnit.NANOSECONDS);
+            DistributionSummary.builder("http.server.requests.db.statements")
+                    .description("Database statements issued while serving the request")
+                    .tags(tags)
+                    .register(meterRegistry)
+                    .record(usage.getStatements());
+
+            if (usage.getStatements() > statementBudget) {
+                Map.Entry<String, Integer> mostRepeated = usage.getMostRepeated();
+                logger.warn("{} {} issued {} statements, over the budget of {}; {} times: {}", request.getMethod(), uri.getValue(),
+                        usage.getStatements(), statementBudget, mostRepeated.getValue(), mostRepeated.getKey());
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.openclassrooms.starterjwt.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts every statement Hibernate prepares in the {@link RequestDbUsage} of
+ * the request, SQL left unchanged. Registered with
+ * {@code hibernate.session_factory.statement_inspector}.
+ */
+public class StatementCountingInspector implements StatementInspector {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public String inspect(String sql) {
+        RequestDbUsage.addStatement(sql);
+        return sql;
+    }
+}
@@ -3,11 +3,16 @@ package com.openclassrooms.starterjwt.models;
 
 import lombok.*;
 import lombok.experimental.Accessors;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import javax.persistence.*;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
@@ -16,8 +21,13 @@ import java.util.Date;
 import java.util.List;
 
 @Entity
-@Table(name = "SESSIONS")
+@Table(name = "SESSIONS", indexes = {
+        @Index(name = "IDX_SESSIONS_DATE_ID", columnList = "date, id"),
+        @Index(name = "IDX_SESSIONS_TEACHER_DATE_ID", columnList = "teacher_id, date, id")
+})
 @EntityListeners(AuditingEntityListener.class)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "sessions")
 @Data
 @Accessors(chain = true)
 @EqualsAndHashCode(of = {"id"})
@@ -26,8 +36,18 @@ import java.util.List;
 @AllArgsConstructor
 @ToString
 public class Session {
+    /**
+     * Allocated 50 at a time from the SESSIONS_SEQ table, so that inserts can be
+     * sent as JDBC batches, which identity columns prevent.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "SESSIONS_SEQ")
+    @GenericGenerator(name = "SESSIONS_SEQ", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator", parameters = {
+        @Parameter(name = "sequence_name", value = "SESSIONS_SEQ"),
+        @Parameter(name = "force_table_use", value = "true"),
+        @Parameter(name = "increment_size", value = "50"),
+        @Parameter(name = "optimizer", value = "pooled-lo")
+    })
     private Long id;
 
     @NotBlank
@@ -45,11 +65,13 @@ public class Session {
     @JoinColumn(name = "teacher_id", referencedColumnName = "id")
     private Teacher teacher;
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    @ManyToMany(fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "session_participants")
     @JoinTable(
             name = "PARTICIPATE",
             joinColumns = @JoinColumn( name = "session_id" ),
-            inverseJoinColumns = @JoinColumn( name = "user_id" ) )
+            inverseJoinColumns = @JoinColumn( name = "user_id" ),
+            indexes = @Index(name = "IDX_PARTICIPATE_USER_SESSION", columnList = "user_id, session_id") )
     private List<User> users;
 
     @CreatedDate
@@ -59,4 +81,22 @@ public class Session {
     @UpdateTimestamp
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
+
+    /**
+     * Incremented by the database on every write of the session or of its
+     * participants, see {@code SessionRepository.claimSeat}.
+     */
+    @Column(name = "version", insertable = false, updatable = false)
+    private Long version;
+
+    /** Maximum number of participants, unlimited when null. */
+    @Min(1)
+    private Integer capacity;
+
+    /**
+     * Number of participants, maintained by the database so that seats are
+     * allocated atomically, see {@code SessionRepository.claimSeat}.
+     */
+    @Column(name = "seats_taken", insertable = false, updatable = false)
+    private Integer seatsTaken;
 }
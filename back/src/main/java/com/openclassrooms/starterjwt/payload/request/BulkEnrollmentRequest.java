@@ -0,0 +1,17 @@
+package com.openclassrooms.starterjwt.payload.request;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+import lombok.Data;
+
+@Data
+public class BulkEnrollmentRequest {
+  public static final int MAX_IDS = 1000;
+
+  @NotEmpty
+  @Size(max = MAX_IDS)
+  private List<@NotNull Long> ids;
+}
@@ -0,0 +1,20 @@
+package com.openclassrooms.starterjwt.payload.request;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+import com.openclassrooms.starterjwt.dto.SessionDto;
+
+import lombok.Data;
+
+@Data
+public class SessionBatchRequest {
+  public static final int MAX_SESSIONS = 10000;
+
+  @NotEmpty
+  @Size(max = MAX_SESSIONS)
+  private List<@NotNull @Valid SessionDto> sessions;
+}
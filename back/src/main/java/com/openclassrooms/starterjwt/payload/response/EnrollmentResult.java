@@ -0,0 +1,16 @@
+package com.openclassrooms.starterjwt.payload.response;
+
+import com.openclassrooms.starterjwt.services.EnrollmentStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class EnrollmentResult {
+  private Long sessionId;
+
+  private Long userId;
+
+  private EnrollmentStatus status;
+}
@@ -0,0 +1,37 @@
+package com.openclassrooms.starterjwt.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Session detail built by a JPQL constructor expression from the session row
+ * alone. The participant ids are read by a second query and set afterwards.
+ */
+@Getter
+@RequiredArgsConstructor
+public class SessionDetail {
+    private final Long id;
+
+    private final String name;
+
+    private final Date date;
+
+    private final String description;
+
+    private final Long teacherId;
+
+    private final Integer capacity;
+
+    private final LocalDateTime createdAt;
+
+    private final LocalDateTime updatedAt;
+
+    @Setter
+    private List<Long> users = Collections.emptyList();
+}
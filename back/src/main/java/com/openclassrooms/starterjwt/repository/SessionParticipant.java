@@ -0,0 +1,8 @@
+package com.openclassrooms.starterjwt.repository;
+
+/**
+ * Participant id read from PARTICIPATE alone.
+ */
+public interface SessionParticipant {
+    Long getUserId();
+}
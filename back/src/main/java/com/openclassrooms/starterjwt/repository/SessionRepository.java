@@ -1,9 +1,214 @@
 package com.openclassrooms.starterjwt.repository;
 
 import com.openclassrooms.starterjwt.models.Session;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hibernate.annotations.QueryHints.NATIVE_SPACES;
+
+/**
+ * The native writes name the table they change in a {@code NATIVE_SPACES} hint,
+ * so that Hibernate only evicts the second-level cache regions of the entity
+ * mapped to it instead of all of them. The cached rosters are not evicted by
+ * the PARTICIPATE writes, see {@code SessionCacheEvictor}.
+ */
 @Repository
 public interface SessionRepository  extends JpaRepository<Session, Long> {
+
+    /**
+     * Loads a session with its teacher and full roster.
+     */
+    @EntityGraph(attributePaths = {"teacher", "users"})
+    Optional<Session> findWithUsersById(Long id);
+
+    /**
+     * Reads the columns of a session and the id of its teacher, without loading
+     * any entity, for the detail path.
+     */
+    @Query("select new com.openclassrooms.starterjwt.repository.SessionDetail(s.id, s.name, s.date, s.description,"
+            + " t.id, s.capacity, s.createdAt, s.updatedAt)"
+            + " from Session s left join s.teacher t"
+            + " where s.id = :id")
+    Optional<SessionDetail> findDetailById(@Param("id") Long id);
+
+    /**
+     * Participant ids of a session, read from the primary key of PARTICIPATE
+     * without joining USERS.
+     */
+    @Query(value = "SELECT user_id AS userId FROM PARTICIPATE WHERE session_id = :sessionId", nativeQuery = true)
+    List<SessionParticipant> findParticipantsBySessionId(@Param("sessionId") Long sessionId);
+
+    /**
+     * Session summaries after the given (cursorDate, cursorId) position, in date
+     * then id descending order. The keyset condition lets the database seek into
+     * the (date, id) index instead of skipping rows like an offset would, and
+     * the participants are only counted for the rows of the page.
+     */
+    @Query(value = "SELECT s.id AS id, s.name AS name, s.date AS date, s.description AS description,"
+            + " s.teacher_id AS teacherId, s.capacity AS capacity, s.created_at AS createdAt, s.updated_at AS updatedAt, s.version AS version,"
+            + " (SELECT COUNT(*) FROM PARTICIPATE p WHERE p.session_id = s.id) AS participantCount,"
+            + " (SELECT COUNT(*) FROM PARTICIPATE p WHERE p.session_id = s.id AND p.user_id = :userId) AS callerParticipations"
+            + " FROM SESSIONS s"
+            + " WHERE (:from IS NULL OR s.date >= :from)"
+            + " AND (:to IS NULL OR s.date < :to)"
+            + " AND (:teacherId IS NULL OR s.teacher_id = :teacherId)"
+            + " AND (:cursorDate IS NULL OR s.date < :cursorDate OR (s.date = :cursorDate AND s.id < :cursorId))"
+            + " ORDER BY s.date DESC, s.id DESC",
+            nativeQuery = true)
+    List<SessionSummary> findSummaries(@Param("from") Date from,
+                                       @Param("to") Date to,
+                                       @Param("teacherId") Long teacherId,
+                                       @Param("cursorDate") Date cursorDate,
+                                       @Param("cursorId") Long cursorId,
+                                       @Param("userId") Long userId,
+                                       Pageable pageable);
+
+    /**
+     * Sessions of a user in date then id descending order, read through the
+     * (user_id, session_id) index of PARTICIPATE.
+     */
+    @Query(value = "SELECT s.id AS id, s.name AS name, s.date AS date, s.description AS description,"
+            + " s.teacher_id AS teacherId, s.capacity AS capacity, s.created_at AS createdAt, s.updated_at AS updatedAt, s.version AS version,"
+            + " (SELECT COUNT(*) FROM PARTICIPATE c WHERE c.session_id = s.id) AS participantCount,"
+            + " 1 AS callerParticipations"
+            + " FROM PARTICIPATE p JOIN SESSIONS s ON s.id = p.session_id"
+            + " WHERE p.user_id = :userId"
+            + " AND (:from IS NULL OR s.date >= :from)"
+            + " AND (:to IS NULL OR s.date < :to)"
+            + " AND (:cursorDate IS NULL OR s.date < :cursorDate OR (s.date = :cursorDate AND s.id < :cursorId))"
+            + " ORDER BY s.date DESC, s.id DESC",
+            nativeQuery = true)
+    List<SessionSummary> findUserSummaries(@Param("userId") Long userId,
+                                           @Param("from") Date from,
+                                           @Param("to") Date to,
+                                           @Param("cursorDate") Date cursorDate,
+                                           @Param("cursorId") Long cursorId,
+                                           Pageable pageable);
+
+    /**
+     * Sessions of a user in date then id ascending order, for the upcoming ones.
+     */
+    @Query(value = "SELECT s.id AS id, s.name AS name, s.date AS date, s.description AS description,"
+            + " s.teacher_id AS teacherId, s.capacity AS capacity, s.created_at AS createdAt, s.updated_at AS updatedAt, s.version AS version,"
+            + " (SELECT COUNT(*) FROM PARTICIPATE c WHERE c.session_id = s.id) AS participantCount,"
+            + " 1 AS callerParticipations"
+            + " FROM PARTICIPATE p JOIN SESSIONS s ON s.id = p.session_id"
+            + " WHERE p.user_id = :userId"
+            + " AND (:from IS NULL OR s.date >= :from)"
+            + " AND (:to IS NULL OR s.date < :to)"
+            + " AND (:cursorDate IS NULL OR s.date > :cursorDate OR (s.date = :cursorDate AND s.id > :cursorId))"
+            + " ORDER BY s.date ASC, s.id ASC",
+            nativeQuery = true)
+    List<SessionSummary> findUserSummariesAscending(@Param("userId") Long userId,
+                                                    @Param("from") Date from,
+                                                    @Param("to") Date to,
+                                                    @Param("cursorDate") Date cursorDate,
+                                                    @Param("cursorId") Long cursorId,
+                                                    Pageable pageable);
+
+    @Query("select s.version from Session s where s.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    /**
+     * Locks the session row until the end of the transaction. Every change of
+     * the seats or of the waitlist of a session starts by locking its row, which
+     * serialises them per session without blocking other sessions.
+     */
+    @Query(value = "SELECT id FROM SESSIONS WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Optional<Long> lockById(@Param("id") Long id);
+
+    /**
+     * Takes a seat and bumps the version in one conditional statement, so
+     * concurrent callers can never oversubscribe the session. Returns 0 when the
+     * session is full or does not exist.
+     */
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "SESSIONS"))
+    @Modifying
+    @Query(value = "UPDATE SESSIONS SET seats_taken = seats_taken + 1, version = version + 1"
+            + " WHERE id = :id AND (capacity IS NULL OR seats_taken < capacity)",
+            nativeQuery = true)
+    int claimSeat(@Param("id") Long id);
+
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "SESSIONS"))
+    @Modifying
+    @Query(value = "UPDATE SESSIONS SET seats_taken = GREATEST(seats_taken - 1, 0), version = version + 1 WHERE id = :id",
+            nativeQuery = true)
+    int releaseSeat(@Param("id") Long id);
+
+    /**
+     * Recounts the seats after the roster was replaced as a whole, and bumps the
+     * version. The pending roster is flushed first.
+     */
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "SESSIONS"))
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE SESSIONS SET seats_taken = (SELECT COUNT(*) FROM PARTICIPATE p WHERE p.session_id = :id),"
+            + " version = version + 1 WHERE id = :id",
+            nativeQuery = true)
+    int syncSeatsTaken(@Param("id") Long id);
+
+    /**
+     * Same as {@link #syncSeatsTaken(Long)} for many sessions with one statement.
+     */
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "SESSIONS"))
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE SESSIONS SET seats_taken = (SELECT COUNT(*) FROM PARTICIPATE p WHERE p.session_id = SESSIONS.id),"
+            + " version = version + 1 WHERE id IN (:ids)",
+            nativeQuery = true)
+    int syncSeatsTakenIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Adds a participant with a single statement. The composite primary key of
+     * PARTICIPATE makes a duplicate a no-op, and the join only yields a row when
+     * both the session and the user exist, so 0 means one of them is missing or
+     * the user already participates.
+     */
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "PARTICIPATE"))
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO PARTICIPATE (session_id, user_id)"
+            + " SELECT s.id, u.id FROM SESSIONS s JOIN USERS u ON u.id = :userId WHERE s.id = :sessionId",
+            nativeQuery = true)
+    int insertParticipant(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    /**
+     * Removes a participant by primary key, returning 0 when the user did not
+     * participate.
+     */
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "PARTICIPATE"))
+    @Modifying
+    @Query(value = "DELETE FROM PARTICIPATE WHERE session_id = :sessionId AND user_id = :userId", nativeQuery = true)
+    int deleteParticipant(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    /**
+     * Queues a user who is neither participating nor already waiting. Returns 0
+     * when the user does not exist or is already in either list.
+     */
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "WAITLIST"))
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO WAITLIST (session_id, user_id)"
+            + " SELECT s.id, u.id FROM SESSIONS s JOIN USERS u ON u.id = :userId WHERE s.id = :sessionId"
+            + " AND NOT EXISTS (SELECT 1 FROM PARTICIPATE p WHERE p.session_id = s.id AND p.user_id = u.id)",
+            nativeQuery = true)
+    int insertWaitlisted(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    /** First user in the waitlist of the session, in arrival order. */
+    @Query(value = "SELECT user_id FROM WAITLIST WHERE session_id = :sessionId ORDER BY id LIMIT 1 FOR UPDATE",
+            nativeQuery = true)
+    Optional<Long> findNextWaitlisted(@Param("sessionId") Long sessionId);
+
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "WAITLIST"))
+    @Modifying
+    @Query(value = "DELETE FROM WAITLIST WHERE session_id = :sessionId AND user_id = :userId", nativeQuery = true)
+    int deleteWaitlisted(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
 }
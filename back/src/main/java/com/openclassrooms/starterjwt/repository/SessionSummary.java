@@ -0,0 +1,33 @@
+package com.openclassrooms.starterjwt.repository;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+
+/**
+ * Session listing row, with the participants aggregated instead of loaded.
+ */
+public interface SessionSummary {
+    Long getId();
+
+    String getName();
+
+    Date getDate();
+
+    String getDescription();
+
+    Long getTeacherId();
+
+    Long getParticipantCount();
+
+    Integer getCapacity();
+
+    /** 1 when the requesting user participates in the session, 0 otherwise. */
+    Long getCallerParticipations();
+
+    LocalDateTime getCreatedAt();
+
+    LocalDateTime getUpdatedAt();
+
+    /** Bumped by every write of the session and of its participants. */
+    Long getVersion();
+}
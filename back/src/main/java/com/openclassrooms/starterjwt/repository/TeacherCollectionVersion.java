@@ -0,0 +1,15 @@
+package com.openclassrooms.starterjwt.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Aggregates of the TEACHERS table that change whenever a teacher is created,
+ * updated or deleted.
+ */
+public interface TeacherCollectionVersion {
+    Long getCount();
+
+    LocalDateTime getLastUpdatedAt();
+
+    Long getMaxId();
+}
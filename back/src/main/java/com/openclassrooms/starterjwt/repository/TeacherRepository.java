@@ -2,8 +2,30 @@ package com.openclassrooms.starterjwt.repository;
 
 import com.openclassrooms.starterjwt.models.Teacher;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+
 @Repository
 public interface TeacherRepository  extends JpaRepository<Teacher, Long> {
+
+    /**
+     * Served from the query cache until a teacher is written.
+     */
+    @Override
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<Teacher> findAll();
+
+    @Query("select t.id as id, t.updatedAt as updatedAt from Teacher t where t.id = :id")
+    Optional<TeacherVersion> findVersionById(@Param("id") Long id);
+
+    @Query("select count(t) as count, max(t.updatedAt) as lastUpdatedAt, coalesce(max(t.id), 0) as maxId from Teacher t")
+    TeacherCollectionVersion findCollectionVersion();
 }
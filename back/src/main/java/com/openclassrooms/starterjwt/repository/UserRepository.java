@@ -1,7 +1,10 @@
 package com.openclassrooms.starterjwt.repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -12,4 +15,8 @@ public interface UserRepository extends JpaRepository<User, Long> {
   Optional<User> findByEmail(String email);
 
   Boolean existsByEmail(String email); 
+
+  List<UserEmail> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+  List<UserEmail> findByCreatedAtGreaterThanEqual(LocalDateTime createdAt);
 }
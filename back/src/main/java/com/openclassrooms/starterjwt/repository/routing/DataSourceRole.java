@@ -0,0 +1,10 @@
+package com.openclassrooms.starterjwt.repository.routing;
+
+/**
+ * Database a connection is taken from: the primary for writes and for reads
+ * that must see them, a replica for the other read-only transactions.
+ */
+public enum DataSourceRole {
+    PRIMARY,
+    REPLICA
+}
@@ -0,0 +1,67 @@
+package com.openclassrooms.starterjwt.repository.routing;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+
+/**
+ * Users who wrote recently, whose reads go to the primary until the replica has
+ * caught up with their writes. The window is held in memory, so it only covers
+ * the requests served by the instance that took the write.
+ */
+@Component
+public class ReadYourWritesWindow {
+    private final Cache<Long, Boolean> pinned;
+
+    public ReadYourWritesWindow(@Value("${oc.app.replicaReadYourWritesMs}") long windowMs,
+                                @Value("${oc.app.replicaReadYourWritesMaxSize}") long maxSize) {
+        this.pinned = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(windowMs, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * Sends the reads of the user to the primary for the length of the window.
+     */
+    public void pin(Long userId) {
+        pinned.put(userId, Boolean.TRUE);
+    }
+
+    /**
+     * Pins the authenticated user of the current request, who made the write,
+     * whatever user the write was about.
+     */
+    public void pinCurrentUser() {
+        Long userId = currentUserId();
+        if (userId != null) {
+            pin(userId);
+        }
+    }
+
+    public boolean isPinned(Long userId) {
+        return userId != null && pinned.getIfPresent(userId) != null;
+    }
+
+    /**
+     * Whether the authenticated user of the current request is pinned.
+     */
+    public boolean isCurrentUserPinned() {
+        return isPinned(currentUserId());
+    }
+
+    private static Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof UserDetailsImpl)) {
+            return null;
+        }
+        return ((UserDetailsImpl) authentication.getPrincipal()).getId();
+    }
+}
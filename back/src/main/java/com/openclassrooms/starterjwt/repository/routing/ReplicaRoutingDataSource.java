@@ -0,0 +1,28 @@
+package com.openclassrooms.starterjwt.repository.routing;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends read-only transactions to the replica, unless the current user is in
+ * its read-your-writes window, and everything else to the primary. The key is
+ * read when the connection is first used, so this data source must be wrapped
+ * in a lazy connection proxy for the transaction flags to be set by then.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    private final ReadYourWritesWindow readYourWritesWindow;
+
+    public ReplicaRoutingDataSource(ReadYourWritesWindow readYourWritesWindow) {
+        this.readYourWritesWindow = readYourWritesWindow;
+    }
+
+    @Override
+    protected DataSourceRole determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && !readYourWritesWindow.isCurrentUserPinned()) {
+            return DataSourceRole.REPLICA;
+        }
+        return DataSourceRole.PRIMARY;
+    }
+}
@@ -1,43 +1,55 @@
 package com.openclassrooms.starterjwt.security.jwt;
 
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.charset.StandardCharsets;
 
 import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.stereotype.Component;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
 
 @Component
 public class AuthEntryPointJwt implements AuthenticationEntryPoint {
 
-  private static final Logger logger = LoggerFactory.getLogger(AuthEntryPointJwt.class);
+  // The body only varies by message and path, the rest of the JSON is encoded once
+  private static final byte[] BODY_PREFIX =
+      ("{\"status\":" + HttpServletResponse.SC_UNAUTHORIZED + ",\"error\":\"Unauthorized\",\"message\":\"")
+          .getBytes(StandardCharsets.UTF_8);
+  private static final byte[] BODY_PATH = "\",\"path\":\"".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] BODY_SUFFIX = "\"}".getBytes(StandardCharsets.UTF_8);
+
+  private final AuthFailureLog authFailureLog;
+
+  AuthEntryPointJwt(AuthFailureLog authFailureLog) {
+    this.authFailureLog = authFailureLog;
+  }
 
   @Override
   public void commence(HttpServletRequest request, HttpServletResponse response, AuthenticationException authException)
       throws IOException, ServletException {
-    logger.error("Unauthorized error: {}", authException.getMessage());
+    authFailureLog.record(AuthFailureReason.UNAUTHORIZED, authException.getMessage());
+
+    JsonStringEncoder encoder = JsonStringEncoder.getInstance();
+    byte[] message = encoder.quoteAsUTF8(String.valueOf(authException.getMessage()));
+    byte[] path = encoder.quoteAsUTF8(String.valueOf(request.getServletPath()));
 
     response.setContentType(MediaType.APPLICATION_JSON_VALUE);
     response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-
-    final Map<String, Object> body = new HashMap<>();
-    body.put("status", HttpServletResponse.SC_UNAUTHORIZED);
-    body.put("error", "Unauthorized");
-    body.put("message", authException.getMessage());
-    body.put("path", request.getServletPath());
-
-    final ObjectMapper mapper = new ObjectMapper();
-    mapper.writeValue(response.getOutputStream(), body);
+    response.setContentLength(BODY_PREFIX.length + message.length + BODY_PATH.length + path.length + BODY_SUFFIX.length);
+
+    ServletOutputStream out = response.getOutputStream();
+    out.write(BODY_PREFIX);
+    out.write(message);
+    out.write(BODY_PATH);
+    out.write(path);
+    out.write(BODY_SUFFIX);
   }
 
 }
@@ -0,0 +1,59 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Counts authentication failures per reason instead of logging each of them.
+ *
+ * Every failure increments the {@code auth.failures} counter tagged with its
+ * reason, and the count of the last interval is logged once per reason every
+ * {@code oc.app.authFailureLogIntervalMs}, with the last detail message seen.
+ */
+@Component
+public class AuthFailureLog {
+  private static final Logger logger = LoggerFactory.getLogger(AuthFailureLog.class);
+
+  private static final AuthFailureReason[] REASONS = AuthFailureReason.values();
+
+  private final Counter[] counters = new Counter[REASONS.length];
+
+  private final LongAdder[] intervalCounts = new LongAdder[REASONS.length];
+
+  private final AtomicReferenceArray<String> lastDetails = new AtomicReferenceArray<>(REASONS.length);
+
+  public AuthFailureLog(MeterRegistry meterRegistry) {
+    for (AuthFailureReason reason : REASONS) {
+      counters[reason.ordinal()] = Counter.builder("auth.failures")
+          .tag("reason", reason.name().toLowerCase(Locale.ROOT))
+          .register(meterRegistry);
+      intervalCounts[reason.ordinal()] = new LongAdder();
+    }
+  }
+
+  public void record(AuthFailureReason reason, String detail) {
+    counters[reason.ordinal()].increment();
+    intervalCounts[reason.ordinal()].increment();
+    lastDetails.lazySet(reason.ordinal(), detail);
+  }
+
+  @Scheduled(fixedRateString = "${oc.app.authFailureLogIntervalMs}")
+  public void flush() {
+    for (AuthFailureReason reason : REASONS) {
+      long count = intervalCounts[reason.ordinal()].sumThenReset();
+      if (count > 0) {
+        logger.warn("{} authentication failure(s) with reason {} since the last report, last one: {}",
+            count, reason, lastDetails.get(reason.ordinal()));
+      }
+    }
+  }
+}
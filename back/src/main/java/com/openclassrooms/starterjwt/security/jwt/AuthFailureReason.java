@@ -0,0 +1,12 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+public enum AuthFailureReason {
+  INVALID_SIGNATURE,
+  MALFORMED_TOKEN,
+  EXPIRED_TOKEN,
+  UNSUPPORTED_TOKEN,
+  EMPTY_TOKEN,
+  UNKNOWN_USER,
+  PRINCIPAL_ERROR,
+  UNAUTHORIZED
+}
@@ -13,19 +13,28 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
 
+import io.jsonwebtoken.Claims;
+
 public class AuthTokenFilter extends OncePerRequestFilter {
+  @Autowired
+  private JwtClaimsCache jwtClaimsCache;
+
   @Autowired
   private JwtUtils jwtUtils;
 
   @Autowired
   private UserDetailsServiceImpl userDetailsService;
 
+  @Autowired
+  private AuthFailureLog authFailureLog;
+
   private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
   @Override
@@ -33,10 +42,13 @@ public void doFilterInternal(HttpServletRequest request, HttpServletResponse res
       throws ServletException, IOException {
     try {
       String jwt = parseJwt(request);
-      if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-        String username = jwtUtils.getUserNameFromJwtToken(jwt);
+      Claims claims = jwt != null ? jwtClaimsCache.getVerifiedClaims(jwt) : null;
+      if (claims != null) {
+        UserDetails userDetails = jwtUtils.getUserDetailsFromClaims(claims);
+        if (userDetails == null) {
+          userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
+        }
 
-        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
         UsernamePasswordAuthenticationToken authentication =
             new UsernamePasswordAuthenticationToken(
                 userDetails,
@@ -46,8 +58,12 @@ public void doFilterInternal(HttpServletRequest request, HttpServletResponse res
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
       }
+    } catch (UsernameNotFoundException e) {
+      logger.debug("Cannot set user authentication: {}", e.getMessage());
+      authFailureLog.record(AuthFailureReason.UNKNOWN_USER, e.getMessage());
     } catch (Exception e) {
-      logger.error("Cannot set user authentication: {}", e);
+      logger.debug("Cannot set user authentication", e);
+      authFailureLog.record(AuthFailureReason.PRINCIPAL_ERROR, e.toString());
     }
 
     filterChain.doFilter(request, response);
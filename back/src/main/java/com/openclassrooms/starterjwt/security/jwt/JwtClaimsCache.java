@@ -0,0 +1,82 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * Bounded cache of already verified token claims.
+ *
+ * Entries are keyed by a SHA-256 hash of the token, so the raw bearer token is
+ * never kept in memory, and each entry expires at the token's own {@code exp}.
+ * Invalid tokens are never cached.
+ */
+@Component
+public class JwtClaimsCache {
+  private final JwtUtils jwtUtils;
+
+  private final Cache<String, Claims> cache;
+
+  public JwtClaimsCache(JwtUtils jwtUtils, @Value("${oc.app.jwtCacheMaxSize}") long maxSize) {
+    this.jwtUtils = jwtUtils;
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfter(new ExpireAtTokenExpiration())
+        .build();
+  }
+
+  public Claims getVerifiedClaims(String token) {
+    String key = hash(token);
+
+    Claims claims = cache.getIfPresent(key);
+    if (claims != null) {
+      return claims;
+    }
+
+    claims = jwtUtils.getClaimsFromJwtToken(token);
+    if (claims != null && claims.getExpiration() != null) {
+      cache.put(key, claims);
+    }
+
+    return claims;
+  }
+
+  private static String hash(String token) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+      return Base64.getEncoder().encodeToString(digest);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  private static class ExpireAtTokenExpiration implements Expiry<String, Claims> {
+    @Override
+    public long expireAfterCreate(String key, Claims claims, long currentTime) {
+      long remainingMs = claims.getExpiration().getTime() - new Date().getTime();
+      return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMs, 0));
+    }
+
+    @Override
+    public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+      return expireAfterCreate(key, claims, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+  }
+}
@@ -0,0 +1,120 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SignatureException;
+import io.jsonwebtoken.impl.TextCodec;
+
+/**
+ * Keys able to verify tokens, and the one used to sign new tokens.
+ *
+ * Tokens name their key in the {@code kid} header. The legacy
+ * {@code oc.app.jwtSecret} key is an ordinary entry of the ring, named
+ * {@value #LEGACY_KEY_ID}, which also verifies the tokens issued before keys
+ * were named. A rollover is staged by first adding the new key on every node,
+ * then switching {@code oc.app.jwt-key-ring.active-key-id}, and finally removing
+ * the old key once its last tokens have expired.
+ */
+@Component
+public class JwtKeyRing {
+  public static final String LEGACY_KEY_ID = "legacy";
+
+  private static final ObjectMapper headerMapper = new ObjectMapper();
+
+  private final Map<String, JwtSigningKey> keys;
+
+  private final JwtSigningKey activeKey;
+
+  private final boolean rejectTokensWithoutKid;
+
+  @Autowired
+  public JwtKeyRing(@Value("${oc.app.jwtSecret:}") String jwtSecret, JwtKeyRingProperties properties) {
+    this(ringKeys(jwtSecret, properties),
+        StringUtils.hasText(properties.getActiveKeyId()) ? properties.getActiveKeyId() : LEGACY_KEY_ID,
+        properties.isRejectTokensWithoutKid());
+  }
+
+  public JwtKeyRing(List<JwtSigningKey> keys, String activeKeyId, boolean rejectTokensWithoutKid) {
+    this.keys = new HashMap<>();
+    keys.forEach(key -> {
+      if (this.keys.putIfAbsent(key.getId(), key) != null) {
+        throw new IllegalArgumentException("Duplicate JWT key " + key.getId());
+      }
+    });
+    this.rejectTokensWithoutKid = rejectTokensWithoutKid;
+
+    this.activeKey = this.keys.get(activeKeyId);
+    if (this.activeKey == null || !this.activeKey.canSign()) {
+      throw new IllegalArgumentException("Active JWT key " + activeKeyId + " is missing or has no private key");
+    }
+  }
+
+  // The legacy secret is left out of the ring once it is emptied
+  private static List<JwtSigningKey> ringKeys(String jwtSecret, JwtKeyRingProperties properties) {
+    List<JwtSigningKey> keys = new ArrayList<>();
+    if (StringUtils.hasText(jwtSecret)) {
+      keys.add(JwtSigningKey.hmac(LEGACY_KEY_ID, SignatureAlgorithm.HS512, jwtSecret));
+    }
+    properties.getKeys().stream().map(JwtSigningKey::fromProperties).forEach(keys::add);
+    return keys;
+  }
+
+  public JwtSigningKey getActiveKey() {
+    return activeKey;
+  }
+
+  public Jws<Claims> parseClaimsJws(String token) {
+    return resolve(token).getParser().parseClaimsJws(token);
+  }
+
+  private JwtSigningKey resolve(String token) {
+    String kid = readKeyId(token);
+    if (kid == null) {
+      if (rejectTokensWithoutKid) {
+        throw new SignatureException("JWT has no kid header");
+      }
+      kid = LEGACY_KEY_ID;
+    }
+
+    JwtSigningKey key = keys.get(kid);
+    if (key == null) {
+      throw new SignatureException("Unknown JWT signing key: " + kid);
+    }
+    return key;
+  }
+
+  private static String readKeyId(String token) {
+    if (!StringUtils.hasText(token)) {
+      throw new IllegalArgumentException("JWT String argument cannot be null or empty.");
+    }
+
+    int headerEnd = token.indexOf('.');
+    if (headerEnd < 0) {
+      throw new MalformedJwtException("JWT strings must contain exactly 2 period characters.");
+    }
+
+    try {
+      Map<?, ?> header = headerMapper.readValue(TextCodec.BASE64URL.decode(token.substring(0, headerEnd)), Map.class);
+      Object kid = header.get(JwsHeader.KEY_ID);
+      return kid == null ? null : kid.toString();
+    } catch (IOException | RuntimeException e) {
+      throw new MalformedJwtException("Unable to read JWT header: " + e.getMessage(), e);
+    }
+  }
+}
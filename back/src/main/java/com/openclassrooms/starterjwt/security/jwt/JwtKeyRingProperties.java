@@ -0,0 +1,49 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * Signing keys declared under {@code oc.app.jwt-key-ring}, in addition to the
+ * legacy {@code oc.app.jwtSecret} key, which joins the ring as
+ * {@value JwtKeyRing#LEGACY_KEY_ID}.
+ */
+@Component
+@ConfigurationProperties(prefix = "oc.app.jwt-key-ring")
+@Data
+public class JwtKeyRingProperties {
+  /**
+   * Id of the key used to sign new tokens. When empty, tokens are signed with
+   * the legacy secret.
+   */
+  private String activeKeyId;
+
+  /**
+   * Rejects the tokens without {@code kid} header, issued before keys were
+   * named, once none of them can still be valid.
+   */
+  private boolean rejectTokensWithoutKid;
+
+  private List<Key> keys = new ArrayList<>();
+
+  @Data
+  public static class Key {
+    private String id;
+
+    private String algorithm = "HS512";
+
+    /** Base64 encoded HMAC secret. */
+    private String secret;
+
+    /** Base64 encoded X.509 public key, for RSA and EC algorithms. */
+    private String publicKey;
+
+    /** Base64 encoded PKCS#8 private key, only needed on nodes that sign with this key. */
+    private String privateKey;
+  }
+}
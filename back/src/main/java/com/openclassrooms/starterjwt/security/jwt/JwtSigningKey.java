@@ -0,0 +1,91 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SignatureException;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.impl.TextCodec;
+import lombok.Getter;
+
+/**
+ * One key of the {@link JwtKeyRing}, with its own verifier built once.
+ *
+ * The verifier only accepts tokens signed with the algorithm declared for the
+ * key, so a token cannot pick another algorithm through its header.
+ */
+@Getter
+public class JwtSigningKey {
+  private final String id;
+
+  private final SignatureAlgorithm algorithm;
+
+  private final Key signingKey;
+
+  private final Key verificationKey;
+
+  private final JwtParser parser;
+
+  public JwtSigningKey(String id, SignatureAlgorithm algorithm, Key signingKey, Key verificationKey) {
+    this.id = id;
+    this.algorithm = algorithm;
+    this.signingKey = signingKey;
+    this.verificationKey = verificationKey;
+    this.parser = Jwts.parser().setSigningKeyResolver(new SigningKeyResolverAdapter() {
+      @Override
+      public Key resolveSigningKey(JwsHeader header, Claims claims) {
+        if (!algorithm.getValue().equals(header.getAlgorithm())) {
+          throw new SignatureException("JWT algorithm " + header.getAlgorithm() + " does not match key " + id);
+        }
+        return verificationKey;
+      }
+    });
+  }
+
+  public boolean canSign() {
+    return signingKey != null;
+  }
+
+  /**
+   * HMAC key from a Base64 encoded secret, decoded the same way jjwt decodes
+   * {@code signWith(SignatureAlgorithm, String)} secrets.
+   */
+  public static JwtSigningKey hmac(String id, SignatureAlgorithm algorithm, String base64Secret) {
+    Key key = new SecretKeySpec(TextCodec.BASE64.decode(base64Secret), algorithm.getJcaName());
+    return new JwtSigningKey(id, algorithm, key, key);
+  }
+
+  public static JwtSigningKey fromProperties(JwtKeyRingProperties.Key properties) {
+    SignatureAlgorithm algorithm = SignatureAlgorithm.forName(properties.getAlgorithm());
+
+    if (algorithm.isHmac()) {
+      return hmac(properties.getId(), algorithm, properties.getSecret());
+    }
+    if (!algorithm.isRsa() && !algorithm.isEllipticCurve()) {
+      throw new IllegalArgumentException("Unsupported JWT algorithm for key " + properties.getId() + ": " + algorithm);
+    }
+
+    try {
+      KeyFactory keyFactory = KeyFactory.getInstance(algorithm.isRsa() ? "RSA" : "EC");
+      Key publicKey = keyFactory.generatePublic(
+          new X509EncodedKeySpec(Base64.getDecoder().decode(properties.getPublicKey())));
+      Key privateKey = properties.getPrivateKey() == null ? null : keyFactory.generatePrivate(
+          new PKCS8EncodedKeySpec(Base64.getDecoder().decode(properties.getPrivateKey())));
+
+      return new JwtSigningKey(properties.getId(), algorithm, privateKey, publicKey);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalArgumentException("Invalid key material for JWT key " + properties.getId(), e);
+    }
+  }
+}
@@ -4,6 +4,7 @@ import java.util.Date;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
@@ -11,49 +12,105 @@ import org.springframework.stereotype.Component;
 import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
 
 import io.jsonwebtoken.*;
+import io.micrometer.core.annotation.Timed;
 
 @Component
 public class JwtUtils {
   private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
 
-  @Value("${oc.app.jwtSecret}")
-  private String jwtSecret;
+  private static final String ID_CLAIM = "id";
+  private static final String FIRST_NAME_CLAIM = "firstName";
+  private static final String LAST_NAME_CLAIM = "lastName";
+  private static final String ADMIN_CLAIM = "admin";
+
+  @Autowired
+  private JwtKeyRing jwtKeyRing;
+
+  @Autowired
+  private AuthFailureLog authFailureLog;
 
   @Value("${oc.app.jwtExpirationMs}")
   private int jwtExpirationMs;
 
+  @Value("${oc.app.jwtStatelessPrincipal}")
+  private boolean statelessPrincipal;
+
   public String generateJwtToken(Authentication authentication) {
 
     UserDetailsImpl userPrincipal = (UserDetailsImpl) authentication.getPrincipal();
 
-    return Jwts.builder()
+    JwtBuilder builder = Jwts.builder()
         .setSubject((userPrincipal.getUsername()))
         .setIssuedAt(new Date())
-        .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-        .signWith(SignatureAlgorithm.HS512, jwtSecret)
+        .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs));
+
+    if (statelessPrincipal) {
+      builder
+          .claim(ID_CLAIM, userPrincipal.getId())
+          .claim(FIRST_NAME_CLAIM, userPrincipal.getFirstName())
+          .claim(LAST_NAME_CLAIM, userPrincipal.getLastName())
+          .claim(ADMIN_CLAIM, userPrincipal.getAdmin());
+    }
+
+    JwtSigningKey signingKey = jwtKeyRing.getActiveKey();
+    if (signingKey.getId() != null) {
+      builder.setHeaderParam(JwsHeader.KEY_ID, signingKey.getId());
+    }
+
+    return builder
+        .signWith(signingKey.getAlgorithm(), signingKey.getSigningKey())
         .compact();
   }
 
-  public String getUserNameFromJwtToken(String token) {
-    return Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(token).getBody().getSubject();
+  /**
+   * Builds the principal straight from the signed claims when the stateless
+   * principal mode is enabled, or returns {@code null} when the principal has
+   * to be loaded from the database (mode disabled or token issued without the
+   * principal claims).
+   */
+  public UserDetailsImpl getUserDetailsFromClaims(Claims claims) {
+    if (!statelessPrincipal || claims.get(ID_CLAIM) == null) {
+      return null;
+    }
+
+    return UserDetailsImpl
+        .builder()
+        .id(claims.get(ID_CLAIM, Long.class))
+        .username(claims.getSubject())
+        .firstName(claims.get(FIRST_NAME_CLAIM, String.class))
+        .lastName(claims.get(LAST_NAME_CLAIM, String.class))
+        .admin(claims.get(ADMIN_CLAIM, Boolean.class))
+        .build();
   }
 
-  public boolean validateJwtToken(String authToken) {
+  /**
+   * Verifies the token signature and expiration once and returns its claims,
+   * or {@code null} when the token is not valid.
+   *
+   * <p>Only {@link JwtClaimsCache} calls this on a cache miss, so the
+   * {@code jwt.verification} timer measures signature checks that actually ran,
+   * not every authenticated request.
+   */
+  @Timed("jwt.verification")
+  public Claims getClaimsFromJwtToken(String authToken) {
     try {
-      Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(authToken);
-      return true;
+      return jwtKeyRing.parseClaimsJws(authToken).getBody();
     } catch (SignatureException e) {
-      logger.error("Invalid JWT signature: {}", e.getMessage());
+      return failure(AuthFailureReason.INVALID_SIGNATURE, e);
     } catch (MalformedJwtException e) {
-      logger.error("Invalid JWT token: {}", e.getMessage());
+      return failure(AuthFailureReason.MALFORMED_TOKEN, e);
     } catch (ExpiredJwtException e) {
-      logger.error("JWT token is expired: {}", e.getMessage());
+      return failure(AuthFailureReason.EXPIRED_TOKEN, e);
     } catch (UnsupportedJwtException e) {
-      logger.error("JWT token is unsupported: {}", e.getMessage());
+      return failure(AuthFailureReason.UNSUPPORTED_TOKEN, e);
     } catch (IllegalArgumentException e) {
-      logger.error("JWT claims string is empty: {}", e.getMessage());
+      return failure(AuthFailureReason.EMPTY_TOKEN, e);
     }
+  }
 
-    return false;
+  private Claims failure(AuthFailureReason reason, RuntimeException e) {
+    logger.debug("JWT rejected ({}): {}", reason, e.getMessage());
+    authFailureLog.record(reason, e.getMessage());
+    return null;
   }
 }
@@ -0,0 +1,61 @@
+package com.openclassrooms.starterjwt.security.password;
+
+import java.util.Arrays;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Picks the BCrypt strength matching the hash latency target on the current
+ * hardware.
+ *
+ * The hash time is measured at the minimum strength, then doubled for every
+ * extra round, and the highest strength staying within the target is kept.
+ * The strength never goes below the minimum, even on slow nodes.
+ */
+@Component
+public class BCryptStrengthCalibrator {
+    private static final Logger logger = LoggerFactory.getLogger(BCryptStrengthCalibrator.class);
+
+    private static final int SAMPLES = 3;
+
+    private final long targetMs;
+
+    private final int minStrength;
+
+    private final int maxStrength;
+
+    public BCryptStrengthCalibrator(@Value("${oc.app.bcryptTargetMs}") long targetMs,
+                                    @Value("${oc.app.bcryptMinStrength}") int minStrength,
+                                    @Value("${oc.app.bcryptMaxStrength}") int maxStrength) {
+        this.targetMs = targetMs;
+        this.minStrength = minStrength;
+        this.maxStrength = maxStrength;
+    }
+
+    public int calibrate() {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(minStrength);
+        encoder.encode("warm-up");
+
+        long[] samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            encoder.encode("calibration");
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        double hashMs = samples[SAMPLES / 2] / 1_000_000.0;
+
+        int strength = minStrength;
+        while (strength < maxStrength && hashMs * 2 <= targetMs) {
+            hashMs *= 2;
+            strength++;
+        }
+
+        logger.info("BCrypt strength calibrated to {} (~{} ms per hash, target {} ms)", strength, Math.round(hashMs), targetMs);
+        return strength;
+    }
+}
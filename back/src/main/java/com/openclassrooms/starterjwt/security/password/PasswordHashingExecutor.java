@@ -0,0 +1,93 @@
+package com.openclassrooms.starterjwt.security.password;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import com.openclassrooms.starterjwt.exception.PasswordHashingRejectedException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+/**
+ * Dedicated pool running the password hashes, so that a burst of logins
+ * cannot take every request thread.
+ *
+ * The pool has a fixed number of threads and a bounded queue. Once both are
+ * full, new hashes are rejected at once with a
+ * {@link PasswordHashingRejectedException} instead of waiting. Queue depth and
+ * pool usage are published as the "passwordHashing" executor metrics, and the
+ * hash durations as the "password.hashing" timer.
+ */
+@Component
+public class PasswordHashingExecutor {
+    private final ThreadPoolExecutor threadPool;
+
+    private final ExecutorService executor;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Counter rejected;
+
+    private final long retryAfterSeconds;
+
+    public PasswordHashingExecutor(@Value("${oc.app.passwordHashingThreads}") int threads,
+                                   @Value("${oc.app.passwordHashingQueueCapacity}") int queueCapacity,
+                                   @Value("${oc.app.passwordHashingRetryAfterSeconds}") long retryAfterSeconds,
+                                   MeterRegistry meterRegistry) {
+        this.threadPool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("password-hashing-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor = ExecutorServiceMetrics.monitor(meterRegistry, threadPool, "passwordHashing");
+        this.meterRegistry = meterRegistry;
+        this.rejected = Counter.builder("password.hashing.rejected").register(meterRegistry);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public <T> T execute(String operation, Supplier<T> task) {
+        Timer timer = Timer.builder("password.hashing")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        Future<T> future;
+        try {
+            future = executor.submit(() -> timer.record(task));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingRejectedException(retryAfterSeconds);
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a password hash", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        threadPool.shutdown();
+    }
+}
@@ -0,0 +1,110 @@
+package com.openclassrooms.starterjwt.security.ratelimit;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Rejects with a 429 the requests exceeding one of the configured
+ * {@link RateLimitProperties rules}. Registered after the JWT filter, so
+ * rules can be keyed by the authenticated principal.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+  private static final byte[] TOO_MANY_REQUESTS_BODY =
+      "{\"message\":\"Too many requests, please retry later.\"}".getBytes(StandardCharsets.UTF_8);
+
+  private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+  private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+  @Autowired
+  private RateLimitProperties properties;
+
+  @Autowired
+  private RateLimiter rateLimiter;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Override
+  public void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    if (properties.isEnabled()) {
+      String path = urlPathHelper.getPathWithinApplication(request);
+      for (RateLimitProperties.Rule rule : properties.getRules()) {
+        if (!matches(rule, request.getMethod(), path)) {
+          continue;
+        }
+
+        long waitNanos = rateLimiter.tryAcquire(rule, resolveKey(rule, request, path));
+        if (waitNanos > 0) {
+          reject(rule, response, waitNanos);
+          return;
+        }
+      }
+    }
+
+    filterChain.doFilter(request, response);
+  }
+
+  private boolean matches(RateLimitProperties.Rule rule, String method, String path) {
+    return (!StringUtils.hasText(rule.getMethod()) || rule.getMethod().equalsIgnoreCase(method))
+        && pathMatcher.match(rule.getPattern(), path);
+  }
+
+  private String resolveKey(RateLimitProperties.Rule rule, HttpServletRequest request, String path) {
+    switch (rule.getKey()) {
+      case PRINCIPAL:
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()) {
+          return authentication.getName();
+        }
+        break;
+      case PATH_VARIABLE:
+        Map<String, String> variables = pathMatcher.extractUriTemplateVariables(rule.getPattern(), path);
+        String value = variables.get(rule.getVariable());
+        if (StringUtils.hasText(value)) {
+          return value;
+        }
+        break;
+      default:
+        break;
+    }
+
+    return request.getRemoteAddr();
+  }
+
+  private void reject(RateLimitProperties.Rule rule, HttpServletResponse response, long waitNanos) throws IOException {
+    Counter.builder("rate.limit.rejected")
+        .tag("rule", rule.getName())
+        .register(meterRegistry)
+        .increment();
+
+    long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+    response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    response.setContentLength(TOO_MANY_REQUESTS_BODY.length);
+    response.getOutputStream().write(TOO_MANY_REQUESTS_BODY);
+  }
+}
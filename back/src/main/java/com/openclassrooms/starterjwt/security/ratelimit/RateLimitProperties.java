@@ -0,0 +1,58 @@
+package com.openclassrooms.starterjwt.security.ratelimit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * Rate limiting rules declared under {@code oc.app.rate-limit}. A request is
+ * checked against every rule matching its method and path.
+ */
+@Component
+@ConfigurationProperties(prefix = "oc.app.rate-limit")
+@Data
+public class RateLimitProperties {
+  private boolean enabled = true;
+
+  /** Maximum number of buckets kept in memory, the least used are evicted first. */
+  private long maxBuckets = 100000;
+
+  /** Buckets not used for this long are evicted, they would be full again anyway. */
+  private long idleBucketMs = 600000;
+
+  private List<Rule> rules = new ArrayList<>();
+
+  public enum KeyType {
+    /** Remote address of the client. */
+    IP,
+    /** Username of the authenticated principal, or the remote address when anonymous. */
+    PRINCIPAL,
+    /** Value of the {@link Rule#getVariable() path variable}, or the remote address when missing. */
+    PATH_VARIABLE
+  }
+
+  @Data
+  public static class Rule {
+    private String name;
+
+    /** HTTP method, any method when empty. */
+    private String method;
+
+    /** Ant style path pattern, such as {@code /api/session/{id}/participate/{userId}}. */
+    private String pattern;
+
+    private KeyType key = KeyType.IP;
+
+    private String variable;
+
+    /** Number of requests allowed in a burst. */
+    private long capacity;
+
+    /** One request is given back to the bucket every period. */
+    private long refillPeriodMs;
+  }
+}
@@ -0,0 +1,59 @@
+package com.openclassrooms.starterjwt.security.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+
+/**
+ * Bounded store of the token buckets, keyed by rule name and client key.
+ *
+ * Lookups go through Caffeine's striped hash table and decisions through the
+ * bucket's compare-and-set, so there is no lock on the hot path. Idle buckets
+ * are evicted, and the least recently used ones once the store is full.
+ */
+@Component
+public class RateLimiter {
+  private final Cache<String, TokenBucket> buckets;
+
+  private final Ticker ticker;
+
+  @Autowired
+  public RateLimiter(RateLimitProperties properties) {
+    this(properties, Ticker.systemTicker());
+  }
+
+  public RateLimiter(RateLimitProperties properties, Ticker ticker) {
+    this.ticker = ticker;
+    this.buckets = Caffeine.newBuilder()
+        .maximumSize(properties.getMaxBuckets())
+        .expireAfterAccess(properties.getIdleBucketMs(), TimeUnit.MILLISECONDS)
+        .ticker(ticker)
+        .build();
+  }
+
+  /**
+   * Takes a token from the bucket of the key for the rule, and returns 0 or
+   * the number of nanoseconds before a token is available.
+   */
+  public long tryAcquire(RateLimitProperties.Rule rule, String key) {
+    String bucketKey = rule.getName() + ':' + key;
+    long now = ticker.read();
+
+    TokenBucket bucket = buckets.getIfPresent(bucketKey);
+    if (bucket == null) {
+      bucket = buckets.get(bucketKey, k -> new TokenBucket(rule.getCapacity(),
+          TimeUnit.MILLISECONDS.toNanos(rule.getRefillPeriodMs()), now));
+    }
+
+    return bucket.tryConsume(now);
+  }
+
+  public long estimatedSize() {
+    return buckets.estimatedSize();
+  }
+}
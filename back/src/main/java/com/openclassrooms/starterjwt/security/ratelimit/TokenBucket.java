@@ -0,0 +1,44 @@
+package com.openclassrooms.starterjwt.security.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket.
+ *
+ * The bucket is stored as a single "theoretical arrival time": the instant at
+ * which it would be full again. Taking a token moves that instant one refill
+ * period forward, and is refused when it would go further than
+ * {@code capacity} periods ahead of now. The whole state fits in one
+ * {@link AtomicLong}, so concurrent requests only race on a compare-and-set.
+ */
+public class TokenBucket {
+  private final long refillPeriodNanos;
+
+  private final long burstNanos;
+
+  private final AtomicLong fullAt;
+
+  public TokenBucket(long capacity, long refillPeriodNanos, long nowNanos) {
+    this.refillPeriodNanos = refillPeriodNanos;
+    this.burstNanos = capacity * refillPeriodNanos;
+    this.fullAt = new AtomicLong(nowNanos);
+  }
+
+  /**
+   * Takes a token and returns 0, or returns how many nanoseconds to wait
+   * before a token is available.
+   */
+  public long tryConsume(long nowNanos) {
+    while (true) {
+      long current = fullAt.get();
+      long next = Math.max(current, nowNanos) + refillPeriodNanos;
+      long waitNanos = next - burstNanos - nowNanos;
+      if (waitNanos > 0) {
+        return waitNanos;
+      }
+      if (fullAt.compareAndSet(current, next)) {
+        return 0;
+      }
+    }
+  }
+}
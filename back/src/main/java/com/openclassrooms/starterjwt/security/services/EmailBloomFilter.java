@@ -0,0 +1,281 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.openclassrooms.starterjwt.repository.UserEmail;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * In-memory Bloom filter of the registered emails, used to skip the USERS
+ * lookup for emails that are definitely not registered.
+ *
+ * The filter is rebuilt from the database once the application is ready and
+ * answers "maybe present" until then. Users registered on other nodes are
+ * read every {@code oc.app.emailFilterRefreshMs} by creation date, from the
+ * previous refresh minus {@code oc.app.emailFilterRefreshOverlapMs}: ids are
+ * allocated in blocks per node and do not follow the commit order, and the
+ * overlap covers the clock skew between nodes and the users created before
+ * the previous refresh but committed after it. The whole filter is rebuilt
+ * every {@code oc.app.emailFilterRebuildMs}. Deleted emails cannot be removed
+ * from a Bloom filter, so they are counted and the filter is rebuilt once they
+ * exceed {@code oc.app.emailFilterRebuildRatio} of the insertions. Emails are
+ * lower-cased and stripped of their accents, like the case and
+ * accent-insensitive USERS collation compares them.
+ */
+@Component
+public class EmailBloomFilter {
+  private static final Logger logger = LoggerFactory.getLogger(EmailBloomFilter.class);
+
+  private static final int REBUILD_PAGE_SIZE = 10000;
+
+  private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+  private final UserRepository userRepository;
+
+  private final int numBits;
+
+  private final int numHashes;
+
+  private final double rebuildRatio;
+
+  private volatile AtomicLongArray bits;
+
+  private volatile AtomicLongArray pendingBits;
+
+  private volatile boolean ready;
+
+  private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+  private final AtomicLong insertions = new AtomicLong();
+
+  private final AtomicLong deletions = new AtomicLong();
+
+  private final long refreshOverlapMs;
+
+  // Start of the last successful read of USERS, the next refresh reads from there minus the overlap
+  private volatile LocalDateTime refreshedAt;
+
+  private final Counter skippedLookups;
+
+  private final Counter falsePositives;
+
+  public EmailBloomFilter(UserRepository userRepository,
+      @Value("${oc.app.emailFilterExpectedInsertions}") long expectedInsertions,
+      @Value("${oc.app.emailFilterFpp}") double fpp,
+      @Value("${oc.app.emailFilterRebuildRatio}") double rebuildRatio,
+      @Value("${oc.app.emailFilterRefreshOverlapMs}") long refreshOverlapMs,
+      MeterRegistry meterRegistry) {
+    this.userRepository = userRepository;
+    this.numBits = (int) Math.min(Integer.MAX_VALUE - 63,
+        Math.ceil(-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2))));
+    this.numHashes = Math.max(1, (int) Math.round((double) numBits / expectedInsertions * Math.log(2)));
+    this.rebuildRatio = rebuildRatio;
+    this.refreshOverlapMs = refreshOverlapMs;
+    this.bits = newBits();
+
+    Gauge.builder("email.filter.expected.fpp", this, EmailBloomFilter::expectedFpp).register(meterRegistry);
+    Gauge.builder("email.filter.insertions", insertions, AtomicLong::get).register(meterRegistry);
+    this.skippedLookups = Counter.builder("email.filter.skipped.lookups").register(meterRegistry);
+    this.falsePositives = Counter.builder("email.filter.false.positives").register(meterRegistry);
+  }
+
+  /**
+   * Returns {@code false} only when the email is definitely not registered.
+   */
+  public boolean mightContain(String email) {
+    if (!ready || email == null) {
+      return true;
+    }
+
+    AtomicLongArray current = bits;
+    long hash = hash(email);
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+    for (int i = 1; i <= numHashes; i++) {
+      int index = bitIndex(h1 + i * h2);
+      if ((current.get(index >>> 6) & (1L << index)) == 0) {
+        skippedLookups.increment();
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Makes an email registered by this node known at once. The next refresh
+   * reads it back from USERS without counting it again.
+   */
+  public void put(String email) {
+    if (setBits(bits, email)) {
+      insertions.incrementAndGet();
+    }
+
+    // Also feed a rebuild in progress, which may have read USERS before this email was saved
+    AtomicLongArray pending = pendingBits;
+    if (pending != null) {
+      setBits(pending, email);
+    }
+  }
+
+  public void recordDeletion() {
+    if (deletions.incrementAndGet() > insertions.get() * rebuildRatio) {
+      CompletableFuture.runAsync(this::rebuild);
+    }
+  }
+
+  /**
+   * Records a "maybe present" answer that the database contradicted.
+   */
+  public void recordFalsePositive() {
+    falsePositives.increment();
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  @Scheduled(initialDelayString = "${oc.app.emailFilterRebuildMs}", fixedDelayString = "${oc.app.emailFilterRebuildMs}")
+  public void rebuild() {
+    if (!rebuilding.compareAndSet(false, true)) {
+      return;
+    }
+
+    try {
+      AtomicLongArray rebuilt = newBits();
+      pendingBits = rebuilt;
+      LocalDateTime startedAt = LocalDateTime.now();
+
+      long count = 0;
+      Long lastId = 0L;
+      List<UserEmail> page;
+      do {
+        page = userRepository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, REBUILD_PAGE_SIZE));
+        for (UserEmail user : page) {
+          setBits(rebuilt, user.getEmail());
+          lastId = user.getId();
+        }
+        count += page.size();
+      } while (page.size() == REBUILD_PAGE_SIZE);
+
+      bits = rebuilt;
+      refreshedAt = startedAt;
+      insertions.set(count);
+      deletions.set(0);
+      ready = true;
+      logger.info("Email filter rebuilt with {} emails", count);
+    } catch (RuntimeException e) {
+      logger.warn("Email filter could not be rebuilt, every email will be looked up: {}", e.getMessage());
+    } finally {
+      pendingBits = null;
+      rebuilding.set(false);
+    }
+  }
+
+  /**
+   * Adds the users created since the previous read of USERS, on this node or
+   * another. Users read again within the overlap set no new bit and are not
+   * counted twice.
+   */
+  @Scheduled(fixedDelayString = "${oc.app.emailFilterRefreshMs}")
+  public void refresh() {
+    if (!ready || !rebuilding.compareAndSet(false, true)) {
+      return;
+    }
+
+    try {
+      LocalDateTime startedAt = LocalDateTime.now();
+      long added = 0;
+      for (UserEmail user : userRepository.findByCreatedAtGreaterThanEqual(refreshedAt.minus(refreshOverlapMs, ChronoUnit.MILLIS))) {
+        if (setBits(bits, user.getEmail())) {
+          added++;
+        }
+      }
+      insertions.addAndGet(added);
+      refreshedAt = startedAt;
+    } catch (RuntimeException e) {
+      logger.warn("Email filter could not be refreshed: {}", e.getMessage());
+    } finally {
+      rebuilding.set(false);
+    }
+  }
+
+  private double expectedFpp() {
+    return Math.pow(1 - Math.exp(-numHashes * (double) insertions.get() / numBits), numHashes);
+  }
+
+  private AtomicLongArray newBits() {
+    return new AtomicLongArray((numBits + 63) / 64);
+  }
+
+  // Returns whether any bit was set, that is whether the email was definitely new to the filter
+  private boolean setBits(AtomicLongArray target, String email) {
+    if (email == null) {
+      return false;
+    }
+
+    boolean changed = false;
+
+    long hash = hash(email);
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+    for (int i = 1; i <= numHashes; i++) {
+      int index = bitIndex(h1 + i * h2);
+      long mask = 1L << index;
+      int word = index >>> 6;
+      long value;
+      do {
+        value = target.get(word);
+        if ((value & mask) != 0) {
+          break;
+        }
+      } while (!target.compareAndSet(word, value, value | mask));
+      changed |= (value & mask) == 0;
+    }
+    return changed;
+  }
+
+  private int bitIndex(int combinedHash) {
+    return (combinedHash & Integer.MAX_VALUE) % numBits;
+  }
+
+  // FNV-1a over the normalized UTF-8 bytes, then the murmur3 finalizer to spread the bits
+  private static long hash(String email) {
+    long hash = 0xcbf29ce484222325L;
+    for (byte b : normalize(email).getBytes(StandardCharsets.UTF_8)) {
+      hash ^= b;
+      hash *= 0x100000001b3L;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+
+  // Approximates the accent and case-insensitive collation: "José" and "jose" share their bits
+  private static String normalize(String email) {
+    String decomposed = Normalizer.normalize(email, Normalizer.Form.NFD);
+    return COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+  }
+}
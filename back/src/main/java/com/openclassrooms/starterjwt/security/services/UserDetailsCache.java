@@ -0,0 +1,86 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Size-bounded, TTL-evicting cache of the principals built by
+ * {@link UserDetailsServiceImpl}. Hit, miss and eviction counts are published
+ * as the "principals" cache metrics.
+ */
+@Component
+public class UserDetailsCache {
+  private final Cache<String, UserDetailsImpl> cache;
+
+  // Cache key of each cached principal, so a user can be evicted by id without a scan
+  private final Map<Long, String> keysById = new ConcurrentHashMap<>();
+
+  public UserDetailsCache(@Value("${oc.app.principalCacheMaxSize}") long maxSize,
+      @Value("${oc.app.principalCacheTtlMs}") long ttlMs,
+      MeterRegistry meterRegistry) {
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(ttlMs, TimeUnit.MILLISECONDS)
+        .recordStats()
+        // Keeps the index in step on the writing thread rather than later on the common pool
+        .executor(Runnable::run)
+        .removalListener((String key, UserDetailsImpl userDetails, RemovalCause cause) -> {
+          // A replaced principal is still cached under the same key, which the index must keep
+          if (cause == RemovalCause.REPLACED) {
+            return;
+          }
+          if (userDetails != null && userDetails.getId() != null) {
+            keysById.remove(userDetails.getId(), key);
+          }
+        })
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, "principals");
+  }
+
+  public UserDetailsImpl get(String username) {
+    return cache.getIfPresent(key(username));
+  }
+
+  public void put(UserDetailsImpl userDetails) {
+    String key = key(userDetails.getUsername());
+    if (userDetails.getId() != null) {
+      String previousKey = keysById.put(userDetails.getId(), key);
+      // A user has a single email, the principal cached under the former one is stale
+      if (previousKey != null && !previousKey.equals(key)) {
+        cache.invalidate(previousKey);
+      }
+    }
+    cache.put(key, userDetails);
+  }
+
+  public void evict(String username) {
+    cache.invalidate(key(username));
+  }
+
+  /**
+   * Removes the principal of the given user, whatever the email it was cached under.
+   */
+  public void evictById(Long id) {
+    String key = keysById.remove(id);
+    if (key != null) {
+      cache.invalidate(key);
+    }
+  }
+
+  // Emails are compared case-insensitively by the USERS table collation
+  private static String key(String username) {
+    return username.toLowerCase(Locale.ROOT);
+  }
+}
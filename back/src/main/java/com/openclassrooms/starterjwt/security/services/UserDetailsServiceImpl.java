@@ -1,6 +1,7 @@
 package com.openclassrooms.starterjwt.security.services;
 
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -10,27 +11,68 @@ import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.UserRepository;
 
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
   UserRepository userRepository;
 
-  UserDetailsServiceImpl(UserRepository userRepository) {
+  UserDetailsCache userDetailsCache;
+
+  EmailBloomFilter emailBloomFilter;
+
+  UserDetailsServiceImpl(UserRepository userRepository, UserDetailsCache userDetailsCache, EmailBloomFilter emailBloomFilter) {
     this.userRepository = userRepository;
+    this.userDetailsCache = userDetailsCache;
+    this.emailBloomFilter = emailBloomFilter;
   }
 
   @Override
-  @Transactional
   public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-    User user = userRepository.findByEmail(username)
-        .orElseThrow(() -> new UsernameNotFoundException("User Not Found with email: " + username));
+    UserDetailsImpl cached = userDetailsCache.get(username);
+    if (cached != null) {
+      return cached;
+    }
+
+    if (!emailBloomFilter.mightContain(username)) {
+      throw new UsernameNotFoundException("User Not Found with email: " + username);
+    }
+
+    User user = userRepository.findByEmail(username).orElse(null);
+    if (user == null) {
+      emailBloomFilter.recordFalsePositive();
+      throw new UsernameNotFoundException("User Not Found with email: " + username);
+    }
+
+    UserDetailsImpl userDetails = toUserDetails(user);
+
+    userDetailsCache.put(userDetails);
+    return userDetails;
+  }
 
+  /**
+   * Stores the password re-encoded by the authentication provider after a
+   * successful login, when the stored hash uses a lower cost than the current strength.
+   */
+  @Override
+  @Transactional
+  public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+    User user = userRepository.findByEmail(userDetails.getUsername())
+        .orElseThrow(() -> new UsernameNotFoundException("User Not Found with email: " + userDetails.getUsername()));
+
+    user.setPassword(newPassword);
+    userRepository.save(user);
+    userDetailsCache.evict(userDetails.getUsername());
+
+    return toUserDetails(user);
+  }
+
+  private static UserDetailsImpl toUserDetails(User user) {
     return UserDetailsImpl
             .builder()
             .id(user.getId())
             .username(user.getEmail())
             .lastName(user.getLastName())
             .firstName(user.getFirstName())
+            .admin(user.isAdmin())
             .password(user.getPassword())
             .build();
   }
-
 }
@@ -0,0 +1,53 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Resolves a batch of ids with a single query, shared by the services loading
+ * the relations of several sessions at once.
+ */
+final class BatchLoader {
+    private BatchLoader() {
+    }
+
+    /**
+     * Resolves the given ids with a single call of {@code loader}, in the order
+     * of their first occurrence and without duplicates.
+     *
+     * @throws BadRequestException when any of the ids is null or does not match
+     *                             an entity
+     */
+    static <T> List<T> findAllById(Collection<Long> ids,
+                                   Function<Set<Long>, ? extends Collection<T>> loader,
+                                   Function<T, Long> idOf,
+                                   String entityName) {
+        Set<Long> distinctIds = new LinkedHashSet<>(ids);
+        if (distinctIds.contains(null)) {
+            throw new BadRequestException("Null " + entityName + " id");
+        }
+        if (distinctIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<Long, T> entitiesById = loader.apply(distinctIds).stream()
+                .collect(Collectors.toMap(idOf, Function.identity()));
+
+        List<Long> unknownIds = distinctIds.stream()
+                .filter(id -> !entitiesById.containsKey(id))
+                .collect(Collectors.toList());
+        if (!unknownIds.isEmpty()) {
+            throw new BadRequestException("Unknown " + entityName + " ids: " + unknownIds);
+        }
+
+        return distinctIds.stream().map(entitiesById::get).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,12 @@
+package com.openclassrooms.starterjwt.services;
+
+/**
+ * Outcome of one item of a bulk enrollment.
+ */
+public enum EnrollmentStatus {
+    PARTICIPATING,
+    WAITLISTED,
+    ALREADY_PARTICIPATING,
+    ALREADY_WAITLISTED,
+    NOT_FOUND
+}
@@ -0,0 +1,11 @@
+package com.openclassrooms.starterjwt.services;
+
+/**
+ * Outcome of a participate request.
+ */
+public enum Participation {
+    /** The user took a seat. */
+    PARTICIPATING,
+    /** The session was full, the user joined its waitlist. */
+    WAITLISTED
+}
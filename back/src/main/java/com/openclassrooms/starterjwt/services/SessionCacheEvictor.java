@@ -0,0 +1,66 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.models.Session;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Evicts the cached sessions and rosters changed by statements that Hibernate
+ * does not track. Hibernate only evicts a cached roster through the entity of
+ * its elements, which would drop every cached user, so the rosters are evicted
+ * by session id instead.
+ *
+ * Evictions run once the transaction is over, so that no reader can cache the
+ * state before the commit again.
+ */
+@Component
+public class SessionCacheEvictor {
+    private static final String ROSTER_ROLE = Session.class.getName() + ".users";
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public SessionCacheEvictor(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    public void evictRoster(Long sessionId) {
+        afterCompletion(Collections.singleton(sessionId), false);
+    }
+
+    /**
+     * Evicts the sessions with their rosters.
+     */
+    public void evictSessions(Collection<Long> sessionIds) {
+        afterCompletion(sessionIds, true);
+    }
+
+    private void afterCompletion(Collection<Long> sessionIds, boolean sessions) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(sessionIds, sessions);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                evict(sessionIds, sessions);
+            }
+        });
+    }
+
+    private void evict(Collection<Long> sessionIds, boolean sessions) {
+        Cache cache = this.entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        for (Long sessionId : sessionIds) {
+            if (sessions) {
+                cache.evictEntityData(Session.class, sessionId);
+            }
+            cache.evictCollectionData(ROSTER_ROLE, sessionId);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.openclassrooms.starterjwt.services;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+import com.openclassrooms.starterjwt.repository.SessionSummary;
+
+import lombok.Value;
+
+/**
+ * Position of the last session of a page, in the date then id order of the
+ * session list being read. Clients get it as an opaque string and send it back
+ * to read the next page.
+ */
+@Value
+public class SessionCursor {
+    Date date;
+
+    Long id;
+
+    public static SessionCursor after(SessionSummary session) {
+        return new SessionCursor(session.getDate(), session.getId());
+    }
+
+    /**
+     * @throws IllegalArgumentException when the value was not produced by {@link #encode()}
+     */
+    public static SessionCursor decode(String value) {
+        String decoded = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+        int separator = decoded.indexOf(':');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Invalid session cursor");
+        }
+
+        return new SessionCursor(
+                new Date(Long.parseLong(decoded.substring(0, separator))),
+                Long.valueOf(decoded.substring(separator + 1)));
+    }
+
+    public String encode() {
+        String value = date.getTime() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
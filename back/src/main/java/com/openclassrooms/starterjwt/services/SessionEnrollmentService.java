@@ -0,0 +1,191 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.exception.NotFoundException;
+import com.openclassrooms.starterjwt.payload.response.EnrollmentResult;
+import com.openclassrooms.starterjwt.repository.routing.ReadYourWritesWindow;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Enrolls many users in a session, or a user in many sessions, in one
+ * transaction.
+ *
+ * The current state of every item is read with one query per table, the
+ * sessions being locked in id order like a single participate locks its
+ * session, then the seats and waitlist entries are written as JDBC batches.
+ * The number of statements does not depend on the number of items.
+ *
+ * These writes bypass Hibernate, so the cached sessions and rosters they change
+ * are evicted, and the reads of the caller go to the primary for a while.
+ */
+@Service
+@Timed("service.calls")
+public class SessionEnrollmentService {
+    private static final String LOCK_SESSIONS = "SELECT id, capacity, seats_taken FROM SESSIONS"
+            + " WHERE id IN (:sessionIds) ORDER BY id FOR UPDATE";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    private final SessionCacheEvictor sessionCacheEvictor;
+
+    private final ReadYourWritesWindow readYourWritesWindow;
+
+    public SessionEnrollmentService(NamedParameterJdbcTemplate jdbcTemplate, SessionCacheEvictor sessionCacheEvictor,
+                                    ReadYourWritesWindow readYourWritesWindow) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sessionCacheEvictor = sessionCacheEvictor;
+        this.readYourWritesWindow = readYourWritesWindow;
+    }
+
+    /**
+     * @throws NotFoundException when the session does not exist
+     */
+    @Transactional
+    public List<EnrollmentResult> enrollUsers(Long sessionId, List<Long> userIds) {
+        this.readYourWritesWindow.pinCurrentUser();
+        Set<Long> ids = new LinkedHashSet<>(userIds);
+        MapSqlParameterSource params = new MapSqlParameterSource("sessionId", sessionId)
+                .addValue("sessionIds", sessionId)
+                .addValue("userIds", ids);
+
+        Map<Long, SessionSeats> seats = lockSessions(params);
+        if (!seats.containsKey(sessionId)) {
+            throw new NotFoundException();
+        }
+        Set<Long> users = queryIds("SELECT id FROM USERS WHERE id IN (:userIds)", params);
+        Set<Long> participating = queryIds("SELECT user_id FROM PARTICIPATE"
+                + " WHERE session_id = :sessionId AND user_id IN (:userIds)", params);
+        Set<Long> waitlisted = queryIds("SELECT user_id FROM WAITLIST"
+                + " WHERE session_id = :sessionId AND user_id IN (:userIds)", params);
+
+        List<EnrollmentResult> results = new ArrayList<>(ids.size());
+        for (Long userId : ids) {
+            results.add(new EnrollmentResult(sessionId, userId,
+                    status(users.contains(userId), participating.contains(userId), waitlisted.contains(userId), seats.get(sessionId))));
+        }
+
+        write(results);
+        return results;
+    }
+
+    /**
+     * @throws NotFoundException when the user does not exist
+     */
+    @Transactional
+    public List<EnrollmentResult> enrollSessions(Long userId, List<Long> sessionIds) {
+        this.readYourWritesWindow.pinCurrentUser();
+        Set<Long> ids = new LinkedHashSet<>(sessionIds);
+        MapSqlParameterSource params = new MapSqlParameterSource("userId", userId)
+                .addValue("sessionIds", ids);
+
+        if (queryIds("SELECT id FROM USERS WHERE id = :userId", params).isEmpty()) {
+            throw new NotFoundException();
+        }
+        Map<Long, SessionSeats> seats = lockSessions(params);
+        Set<Long> participating = queryIds("SELECT session_id FROM PARTICIPATE"
+                + " WHERE user_id = :userId AND session_id IN (:sessionIds)", params);
+        Set<Long> waitlisted = queryIds("SELECT session_id FROM WAITLIST"
+                + " WHERE user_id = :userId AND session_id IN (:sessionIds)", params);
+
+        List<EnrollmentResult> results = new ArrayList<>(ids.size());
+        for (Long sessionId : ids) {
+            results.add(new EnrollmentResult(sessionId, userId,
+                    status(seats.containsKey(sessionId), participating.contains(sessionId), waitlisted.contains(sessionId), seats.get(sessionId))));
+        }
+
+        write(results);
+        return results;
+    }
+
+    private static EnrollmentStatus status(boolean exists, boolean participating, boolean waitlisted, SessionSeats seats) {
+        if (!exists) {
+            return EnrollmentStatus.NOT_FOUND;
+        }
+        if (participating) {
+            return EnrollmentStatus.ALREADY_PARTICIPATING;
+        }
+        if (waitlisted) {
+            return EnrollmentStatus.ALREADY_WAITLISTED;
+        }
+        return seats.takeSeat() ? EnrollmentStatus.PARTICIPATING : EnrollmentStatus.WAITLISTED;
+    }
+
+    private void write(List<EnrollmentResult> results) {
+        List<SqlParameterSource> participants = new ArrayList<>();
+        List<SqlParameterSource> waiting = new ArrayList<>();
+        Map<Long, Integer> seatsTaken = new HashMap<>();
+        for (EnrollmentResult result : results) {
+            MapSqlParameterSource row = new MapSqlParameterSource("sessionId", result.getSessionId())
+                    .addValue("userId", result.getUserId());
+            if (result.getStatus() == EnrollmentStatus.PARTICIPATING) {
+                participants.add(row);
+                seatsTaken.merge(result.getSessionId(), 1, Integer::sum);
+            } else if (result.getStatus() == EnrollmentStatus.WAITLISTED) {
+                waiting.add(row);
+            }
+        }
+
+        if (!participants.isEmpty()) {
+            this.jdbcTemplate.batchUpdate("INSERT INTO PARTICIPATE (session_id, user_id) VALUES (:sessionId, :userId)",
+                    participants.toArray(new SqlParameterSource[0]));
+        }
+        if (!waiting.isEmpty()) {
+            this.jdbcTemplate.batchUpdate("INSERT INTO WAITLIST (session_id, user_id) VALUES (:sessionId, :userId)",
+                    waiting.toArray(new SqlParameterSource[0]));
+        }
+        if (!seatsTaken.isEmpty()) {
+            this.jdbcTemplate.batchUpdate("UPDATE SESSIONS SET seats_taken = seats_taken + :seats, version = version + 1 WHERE id = :sessionId",
+                    seatsTaken.entrySet().stream()
+                            .map(entry -> new MapSqlParameterSource("sessionId", entry.getKey()).addValue("seats", entry.getValue()))
+                            .toArray(SqlParameterSource[]::new));
+            this.sessionCacheEvictor.evictSessions(seatsTaken.keySet());
+        }
+    }
+
+    private Map<Long, SessionSeats> lockSessions(SqlParameterSource params) {
+        Map<Long, SessionSeats> seats = new HashMap<>();
+        this.jdbcTemplate.query(LOCK_SESSIONS, params, rs -> {
+            long id = rs.getLong("id");
+            int capacity = rs.getInt("capacity");
+            seats.put(id, new SessionSeats(rs.wasNull() ? null : capacity, rs.getInt("seats_taken")));
+        });
+        return seats;
+    }
+
+    private Set<Long> queryIds(String sql, SqlParameterSource params) {
+        Collection<Long> ids = this.jdbcTemplate.queryForList(sql, params, Long.class);
+        return new HashSet<>(ids);
+    }
+
+    /**
+     * Seats left in a locked session, decremented as the items are assigned.
+     */
+    static final class SessionSeats {
+        private int free;
+
+        SessionSeats(Integer capacity, int seatsTaken) {
+            this.free = capacity == null ? Integer.MAX_VALUE : Math.max(0, capacity - seatsTaken);
+        }
+
+        boolean takeSeat() {
+            if (free == 0) {
+                return false;
+            }
+            free--;
+            return true;
+        }
+    }
+}
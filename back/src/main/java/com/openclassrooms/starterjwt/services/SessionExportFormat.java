@@ -0,0 +1,30 @@
+package com.openclassrooms.starterjwt.services;
+
+public enum SessionExportFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+
+    private final String extension;
+
+    SessionExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * @throws IllegalArgumentException when the format is not supported
+     */
+    public static SessionExportFormat fromName(String name) {
+        return SessionExportFormat.valueOf(name.trim().toUpperCase());
+    }
+}
@@ -0,0 +1,224 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes every session with its participant ids to a stream, one session at a
+ * time.
+ *
+ * Sessions are read from a forward-only, read-only result set, joined with
+ * their participants and ordered by session id, so that the rows of a session
+ * are consecutive. Only the session being read is held in memory, whatever the
+ * size of the catalog.
+ *
+ * The fetch size defaults to {@link Integer#MIN_VALUE}, which makes MySQL
+ * Connector/J stream the rows one by one for this statement only. Other
+ * drivers take a positive {@code oc.app.sessionExportFetchSize} instead.
+ */
+@Service
+@Timed("service.calls")
+public class SessionExportService {
+    static final String EXPORT_QUERY = "SELECT s.id, s.name, s.date, s.description, s.teacher_id,"
+            + " s.created_at, s.updated_at, p.user_id"
+            + " FROM SESSIONS s LEFT JOIN PARTICIPATE p ON p.session_id = s.id"
+            + " ORDER BY s.id, p.user_id";
+
+    private static final String[] CSV_COLUMNS =
+            {"id", "name", "date", "description", "teacher_id", "users", "createdAt", "updatedAt"};
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final JsonFactory jsonFactory = new JsonFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    public SessionExportService(DataSource dataSource,
+            @Value("${oc.app.sessionExportFetchSize:" + Integer.MIN_VALUE + "}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    public void export(SessionExportFormat format, OutputStream out) throws IOException {
+        ExportWriter writer = format == SessionExportFormat.CSV ? new CsvWriter(out) : new NdjsonWriter(out);
+
+        ExportedSession[] current = new ExportedSession[1];
+        try {
+            // A prepared statement, so that the fetch size is applied before the query runs
+            this.jdbcTemplate.query(EXPORT_QUERY, (PreparedStatementSetter) null, (ResultSet rs) -> {
+                long id = rs.getLong("id");
+                if (current[0] == null || current[0].id != id) {
+                    if (current[0] != null) {
+                        write(writer, current[0]);
+                    }
+                    current[0] = new ExportedSession(rs);
+                }
+
+                long userId = rs.getLong("user_id");
+                if (!rs.wasNull()) {
+                    current[0].users.add(userId);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        if (current[0] != null) {
+            writer.write(current[0]);
+        }
+        writer.close();
+    }
+
+    private static void write(ExportWriter writer, ExportedSession session) {
+        try {
+            writer.write(session);
+        } catch (IOException e) {
+            // Most likely the client went away, stop reading the cursor
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static class ExportedSession {
+        private final long id;
+        private final String name;
+        private final Timestamp date;
+        private final String description;
+        private final Long teacherId;
+        private final Timestamp createdAt;
+        private final Timestamp updatedAt;
+        private final List<Long> users = new ArrayList<>();
+
+        ExportedSession(ResultSet rs) throws SQLException {
+            this.id = rs.getLong("id");
+            this.name = rs.getString("name");
+            this.date = rs.getTimestamp("date");
+            this.description = rs.getString("description");
+            long teacher = rs.getLong("teacher_id");
+            this.teacherId = rs.wasNull() ? null : teacher;
+            this.createdAt = rs.getTimestamp("created_at");
+            this.updatedAt = rs.getTimestamp("updated_at");
+        }
+    }
+
+    private interface ExportWriter {
+        void write(ExportedSession session) throws IOException;
+
+        void close() throws IOException;
+    }
+
+    private class NdjsonWriter implements ExportWriter {
+        private final JsonGenerator generator;
+
+        NdjsonWriter(OutputStream out) throws IOException {
+            this.generator = jsonFactory.createGenerator(out, JsonEncoding.UTF8);
+            this.generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void write(ExportedSession session) throws IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("id", session.id);
+            generator.writeStringField("name", session.name);
+            writeTimestamp("date", session.date);
+            generator.writeStringField("description", session.description);
+            if (session.teacherId != null) {
+                generator.writeNumberField("teacher_id", session.teacherId);
+            } else {
+                generator.writeNullField("teacher_id");
+            }
+            generator.writeArrayFieldStart("users");
+            for (Long user : session.users) {
+                generator.writeNumber(user);
+            }
+            generator.writeEndArray();
+            writeTimestamp("createdAt", session.createdAt);
+            writeTimestamp("updatedAt", session.updatedAt);
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        private void writeTimestamp(String field, Timestamp value) throws IOException {
+            if (value != null) {
+                generator.writeStringField(field, value.toLocalDateTime().toString());
+            } else {
+                generator.writeNullField(field);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.close();
+        }
+    }
+
+    private static class CsvWriter implements ExportWriter {
+        private final Writer out;
+
+        private final StringBuilder line = new StringBuilder();
+
+        CsvWriter(OutputStream out) throws IOException {
+            this.out = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            this.out.write(String.join(",", CSV_COLUMNS));
+            this.out.write("\r\n");
+        }
+
+        @Override
+        public void write(ExportedSession session) throws IOException {
+            line.setLength(0);
+            line.append(session.id).append(',');
+            appendEscaped(session.name).append(',');
+            appendTimestamp(session.date).append(',');
+            appendEscaped(session.description).append(',');
+            if (session.teacherId != null) {
+                line.append(session.teacherId);
+            }
+            line.append(',');
+            for (int i = 0; i < session.users.size(); i++) {
+                if (i > 0) {
+                    line.append(';');
+                }
+                line.append(session.users.get(i));
+            }
+            line.append(',');
+            appendTimestamp(session.createdAt).append(',');
+            appendTimestamp(session.updatedAt).append("\r\n");
+            out.append(line);
+        }
+
+        private StringBuilder appendTimestamp(Timestamp value) {
+            return value != null ? line.append(value.toLocalDateTime()) : line;
+        }
+
+        private StringBuilder appendEscaped(String value) {
+            if (value == null) {
+                return line;
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return line.append(value);
+            }
+            return line.append('"').append(value.replace("\"", "\"\"")).append('"');
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+    }
+}
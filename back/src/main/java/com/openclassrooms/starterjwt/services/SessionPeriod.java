@@ -0,0 +1,18 @@
+package com.openclassrooms.starterjwt.services;
+
+/**
+ * Filter of the sessions of a user relative to the current time.
+ */
+public enum SessionPeriod {
+    /** Sessions from now on, the nearest first. */
+    UPCOMING,
+    /** Sessions before now, the most recent first. */
+    PAST;
+
+    /**
+     * @throws IllegalArgumentException when the period is not supported
+     */
+    public static SessionPeriod fromName(String name) {
+        return SessionPeriod.valueOf(name.trim().toUpperCase());
+    }
+}
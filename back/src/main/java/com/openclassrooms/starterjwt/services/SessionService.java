@@ -3,76 +3,262 @@ package com.openclassrooms.starterjwt.services;
 import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.exception.NotFoundException;
 import com.openclassrooms.starterjwt.models.Session;
-import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionDetail;
+import com.openclassrooms.starterjwt.repository.SessionParticipant;
 import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.SessionSummary;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.repository.routing.ReadYourWritesWindow;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.DigestUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
+@Timed("service.calls")
 public class SessionService {
     private final SessionRepository sessionRepository;
 
     private final UserRepository userRepository;
 
-    public SessionService(SessionRepository sessionRepository, UserRepository userRepository) {
+    private final SessionCacheEvictor sessionCacheEvictor;
+
+    private final ReadYourWritesWindow readYourWritesWindow;
+
+    public SessionService(SessionRepository sessionRepository, UserRepository userRepository,
+                          SessionCacheEvictor sessionCacheEvictor, ReadYourWritesWindow readYourWritesWindow) {
         this.sessionRepository = sessionRepository;
         this.userRepository = userRepository;
+        this.sessionCacheEvictor = sessionCacheEvictor;
+        this.readYourWritesWindow = readYourWritesWindow;
     }
 
+    @Transactional
     public Session create(Session session) {
-        return this.sessionRepository.save(session);
+        checkCapacity(session);
+        Session saved = this.sessionRepository.save(session);
+        this.sessionRepository.syncSeatsTaken(saved.getId());
+        return saved;
+    }
+
+    /**
+     * Creates the sessions in one transaction. Their ids are allocated by blocks,
+     * so that the inserts are sent as JDBC batches, and the seats of the sessions
+     * with participants are counted with a single statement.
+     */
+    @Transactional
+    public List<Session> createAll(List<Session> sessions) {
+        sessions.forEach(SessionService::checkCapacity);
+        List<Session> saved = this.sessionRepository.saveAll(sessions);
+
+        List<Long> withUsers = saved.stream()
+                .filter(session -> session.getUsers() != null && !session.getUsers().isEmpty())
+                .map(Session::getId)
+                .collect(Collectors.toList());
+        if (!withUsers.isEmpty()) {
+            this.sessionRepository.syncSeatsTakenIn(withUsers);
+        }
+        return saved;
     }
 
     public void delete(Long id) {
         this.sessionRepository.deleteById(id);
     }
 
+    @Transactional(readOnly = true)
+    public boolean exists(Long id) {
+        return this.sessionRepository.existsById(id);
+    }
+
+    @Transactional(readOnly = true)
     public List<Session> findAll() {
         return this.sessionRepository.findAll();
     }
 
+    /**
+     * Reads at most {@code size} session summaries after the cursor, or from the
+     * most recent one when the cursor is null, with optional date range and
+     * teacher filters. {@code userId} is the user for whom the participation
+     * flag is computed.
+     */
+    @Transactional(readOnly = true)
+    public List<SessionSummary> findPage(SessionCursor cursor, int size, Date from, Date to, Long teacherId, Long userId) {
+        return this.sessionRepository.findSummaries(
+                from,
+                to,
+                teacherId,
+                cursor != null ? cursor.getDate() : null,
+                cursor != null ? cursor.getId() : null,
+                userId,
+                PageRequest.of(0, size));
+    }
+
+    /**
+     * Reads at most {@code size} sessions the user participates in after the
+     * cursor. Upcoming sessions are read from now on in ascending order, past
+     * ones before now in descending order, and without a period every session
+     * in descending order, all within the optional date range.
+     */
+    @Transactional(readOnly = true)
+    public List<SessionSummary> findUserPage(Long userId, SessionPeriod period, SessionCursor cursor, int size, Date from, Date to) {
+        Date cursorDate = cursor != null ? cursor.getDate() : null;
+        Long cursorId = cursor != null ? cursor.getId() : null;
+        Date now = new Date();
+
+        if (period == SessionPeriod.UPCOMING) {
+            Date start = from == null || from.before(now) ? now : from;
+            return this.sessionRepository.findUserSummariesAscending(userId, start, to, cursorDate, cursorId, PageRequest.of(0, size));
+        }
+        Date end = period == SessionPeriod.PAST && (to == null || to.after(now)) ? now : to;
+        return this.sessionRepository.findUserSummaries(userId, from, end, cursorDate, cursorId, PageRequest.of(0, size));
+    }
+
+    @Transactional(readOnly = true)
     public Session getById(Long id) {
-        return this.sessionRepository.findById(id).orElse(null);
+        return this.sessionRepository.findWithUsersById(id).orElse(null);
     }
 
-    public Session update(Long id, Session session) {
-        session.setId(id);
-        return this.sessionRepository.save(session);
+    /**
+     * Reads a session and its participant ids with two queries, or returns
+     * {@code null} when the session does not exist.
+     */
+    @Transactional(readOnly = true)
+    public SessionDetail getDetailById(Long id) {
+        return this.sessionRepository.findDetailById(id)
+                .map(detail -> {
+                    detail.setUsers(this.sessionRepository.findParticipantsBySessionId(id).stream()
+                            .map(SessionParticipant::getUserId)
+                            .collect(Collectors.toList()));
+                    return detail;
+                })
+                .orElse(null);
     }
 
-    public void participate(Long id, Long userId) {
-        Session session = this.sessionRepository.findById(id).orElse(null);
-        User user = this.userRepository.findById(userId).orElse(null);
-        if (session == null || user == null) {
-            throw new NotFoundException();
+    /**
+     * Strong validator of a session and its participants, read without loading
+     * the session, or {@code null} when the session does not exist.
+     */
+    @Transactional(readOnly = true)
+    public String getETag(Long id) {
+        return this.sessionRepository.findVersionById(id)
+                .map(version -> id + "-" + version)
+                .orElse(null);
+    }
+
+    /**
+     * Validator of a page of the session list, derived from the page itself: the
+     * id and version of each session, whether the caller participates in it, and
+     * the cursor of the next page. No query is needed beyond the page.
+     */
+    public String getCollectionETag(List<SessionSummary> sessions, String nextCursor) {
+        StringBuilder page = new StringBuilder();
+        for (SessionSummary session : sessions) {
+            page.append(session.getId()).append('.').append(session.getVersion())
+                    .append('.').append(session.getCallerParticipations()).append(';');
         }
+        page.append(nextCursor);
+        return DigestUtils.md5DigestAsHex(page.toString().getBytes(StandardCharsets.UTF_8));
+    }
 
-        boolean alreadyParticipate = session.getUsers().stream().anyMatch(o -> o.getId().equals(userId));
-        if(alreadyParticipate) {
+    @Transactional
+    public Session update(Long id, Session session) {
+        checkCapacity(session);
+        session.setId(id);
+        this.sessionRepository.lockById(id);
+        Session saved = this.sessionRepository.save(session);
+        this.sessionRepository.syncSeatsTaken(id);
+        promoteWaitlisted(id);
+        return saved;
+    }
+
+    /**
+     * Takes a seat in the session, or queues the user on its waitlist when the
+     * session is full. The reads of the caller then go to the primary for a
+     * while, so that the replica cannot show the session without the user.
+     */
+    @Transactional
+    public Participation participate(Long id, Long userId) {
+        this.readYourWritesWindow.pinCurrentUser();
+        if (this.sessionRepository.claimSeat(id) == 1) {
+            if (this.sessionRepository.insertParticipant(id, userId) == 1) {
+                this.sessionCacheEvictor.evictRoster(id);
+                return Participation.PARTICIPATING;
+            }
+            // The exception rolls the claimed seat back
+            if (!this.userRepository.existsById(userId)) {
+                throw new NotFoundException();
+            }
             throw new BadRequestException();
         }
 
-        session.getUsers().add(user);
-
-        this.sessionRepository.save(session);
+        // Full: hold the session until the user is queued, so that a seat released
+        // meanwhile cannot miss this user
+        if (!this.sessionRepository.lockById(id).isPresent()) {
+            throw new NotFoundException();
+        }
+        if (this.sessionRepository.insertWaitlisted(id, userId) == 1) {
+            return Participation.WAITLISTED;
+        }
+        if (!this.userRepository.existsById(userId)) {
+            throw new NotFoundException();
+        }
+        throw new BadRequestException();
     }
 
+    /**
+     * Gives the seat of the user back and promotes the next waitlisted user, or
+     * removes the user from the waitlist.
+     */
+    @Transactional
     public void noLongerParticipate(Long id, Long userId) {
-        Session session = this.sessionRepository.findById(id).orElse(null);
-        if (session == null) {
+        this.readYourWritesWindow.pinCurrentUser();
+        if (!this.sessionRepository.lockById(id).isPresent()) {
             throw new NotFoundException();
         }
 
-        boolean alreadyParticipate = session.getUsers().stream().anyMatch(o -> o.getId().equals(userId));
-        if(!alreadyParticipate) {
+        if (this.sessionRepository.deleteParticipant(id, userId) == 1) {
+            this.sessionCacheEvictor.evictRoster(id);
+            this.sessionRepository.releaseSeat(id);
+            promoteWaitlisted(id);
+            return;
+        }
+        if (this.sessionRepository.deleteWaitlisted(id, userId) == 0) {
             throw new BadRequestException();
         }
+    }
 
-        session.setUsers(session.getUsers().stream().filter(user -> !user.getId().equals(userId)).collect(Collectors.toList()));
+    /**
+     * Moves waitlisted users to the session in arrival order while seats are
+     * free. The caller holds the session lock.
+     */
+    private void promoteWaitlisted(Long id) {
+        Optional<Long> next;
+        while ((next = this.sessionRepository.findNextWaitlisted(id)).isPresent()) {
+            if (this.sessionRepository.claimSeat(id) == 0) {
+                return;
+            }
+            Long userId = next.get();
+            this.sessionRepository.deleteWaitlisted(id, userId);
+            if (this.sessionRepository.insertParticipant(id, userId) == 0) {
+                // Already added through the roster
+                this.sessionRepository.releaseSeat(id);
+            } else {
+                this.sessionCacheEvictor.evictRoster(id);
+            }
+        }
+    }
 
-        this.sessionRepository.save(session);
+    private static void checkCapacity(Session session) {
+        if (session.getCapacity() != null && session.getUsers() != null
+                && session.getUsers().size() > session.getCapacity()) {
+            throw new BadRequestException("The participants exceed the capacity of the session");
+        }
     }
 }
@@ -1,12 +1,20 @@
 package com.openclassrooms.starterjwt.services;
 
+import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.repository.TeacherCollectionVersion;
 import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
 import java.util.List;
 
 @Service
+@Timed("service.calls")
 public class TeacherService {
     private final TeacherRepository teacherRepository;
 
@@ -14,11 +22,44 @@ public class TeacherService {
         this.teacherRepository = teacherRepository;
     }
 
+    @Transactional(readOnly = true)
     public List<Teacher> findAll() {
         return this.teacherRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
     public Teacher findById(Long id) {
         return this.teacherRepository.findById(id).orElse(null);
     }
+
+    /**
+     * Resolves the given ids with a single query, in the order of their first
+     * occurrence and without duplicates.
+     *
+     * @throws BadRequestException when any of the ids does not match a teacher
+     */
+    public List<Teacher> findAllById(Collection<Long> ids) {
+        return BatchLoader.findAllById(ids, this.teacherRepository::findAllById, Teacher::getId, "teacher");
+    }
+
+    /**
+     * Strong validator of a teacher, read without loading the teacher, or
+     * {@code null} when the teacher does not exist.
+     */
+    @Transactional(readOnly = true)
+    public String getETag(Long id) {
+        return this.teacherRepository.findVersionById(id)
+                .map(version -> id + "-" + toEpochMilli(version.getUpdatedAt()))
+                .orElse(null);
+    }
+
+    @Transactional(readOnly = true)
+    public String getCollectionETag() {
+        TeacherCollectionVersion version = this.teacherRepository.findCollectionVersion();
+        return version.getCount() + "-" + toEpochMilli(version.getLastUpdatedAt()) + "-" + version.getMaxId();
+    }
+
+    private static long toEpochMilli(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : 0;
+    }
 }
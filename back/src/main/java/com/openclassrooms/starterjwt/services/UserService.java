@@ -1,22 +1,50 @@
 package com.openclassrooms.starterjwt.services;
 
+import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.services.EmailBloomFilter;
+import com.openclassrooms.starterjwt.security.services.UserDetailsCache;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
 
 @Service
+@Timed("service.calls")
 public class UserService {
     private final UserRepository userRepository;
 
-    public UserService(UserRepository userRepository) {
+    private final UserDetailsCache userDetailsCache;
+
+    private final EmailBloomFilter emailBloomFilter;
+
+    public UserService(UserRepository userRepository, UserDetailsCache userDetailsCache, EmailBloomFilter emailBloomFilter) {
         this.userRepository = userRepository;
+        this.userDetailsCache = userDetailsCache;
+        this.emailBloomFilter = emailBloomFilter;
     }
 
     public void delete(Long id) {
         this.userRepository.deleteById(id);
+        this.userDetailsCache.evictById(id);
+        this.emailBloomFilter.recordDeletion();
     }
 
+    @Transactional(readOnly = true)
     public User findById(Long id) {
         return this.userRepository.findById(id).orElse(null);
     }
+
+    /**
+     * Resolves the given ids with a single query, in the order of their first
+     * occurrence and without duplicates.
+     *
+     * @throws BadRequestException when any of the ids does not match a user
+     */
+    public List<User> findAllById(Collection<Long> ids) {
+        return BatchLoader.findAllById(ids, this.userRepository::findAllById, User::getId, "user");
+    }
 }
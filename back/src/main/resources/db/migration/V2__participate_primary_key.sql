@@ -0,0 +1,23 @@
+-- PARTICIPATE had neither a primary key nor NOT NULL columns. It is rebuilt with
+-- a (session_id, user_id) primary key, keeping one row per pair and dropping the
+-- rows without a session or a user, plus a (user_id, session_id) index for the
+-- sessions of a user. The index is created before the foreign keys so that the
+-- user_id key reuses it.
+CREATE TABLE `PARTICIPATE_V2` (
+  `session_id` INT NOT NULL,
+  `user_id` INT NOT NULL,
+  PRIMARY KEY (`session_id`, `user_id`)
+);
+
+INSERT INTO `PARTICIPATE_V2` (`session_id`, `user_id`)
+SELECT DISTINCT `session_id`, `user_id` FROM `PARTICIPATE`
+WHERE `session_id` IS NOT NULL AND `user_id` IS NOT NULL;
+
+DROP TABLE `PARTICIPATE`;
+
+ALTER TABLE `PARTICIPATE_V2` RENAME TO `PARTICIPATE`;
+
+CREATE INDEX `IDX_PARTICIPATE_USER_SESSION` ON `PARTICIPATE` (`user_id`, `session_id`);
+
+ALTER TABLE `PARTICIPATE` ADD FOREIGN KEY (`user_id`) REFERENCES `USERS` (`id`);
+ALTER TABLE `PARTICIPATE` ADD FOREIGN KEY (`session_id`) REFERENCES `SESSIONS` (`id`);
@@ -0,0 +1,3 @@
+-- Login and registration look users up by email, which the entity declares
+-- unique. Duplicate emails have to be merged before this migration can run.
+CREATE UNIQUE INDEX `UK_USERS_EMAIL` ON `USERS` (`email`);
@@ -0,0 +1,18 @@
+-- Entity ids are allocated by Hibernate in blocks of 50 from these tables
+-- (pooled-lo), so that inserts can be batched. Each table holds the first id
+-- of the next block. Rows inserted outside the application must take their id
+-- from the table too, the AUTO_INCREMENT of the id columns is no longer used.
+CREATE TABLE `SESSIONS_SEQ` (
+  `next_val` BIGINT NOT NULL
+);
+INSERT INTO `SESSIONS_SEQ` (`next_val`) SELECT COALESCE(MAX(`id`), 0) + 1 FROM `SESSIONS`;
+
+CREATE TABLE `TEACHERS_SEQ` (
+  `next_val` BIGINT NOT NULL
+);
+INSERT INTO `TEACHERS_SEQ` (`next_val`) SELECT COALESCE(MAX(`id`), 0) + 1 FROM `TEACHERS`;
+
+CREATE TABLE `USERS_SEQ` (
+  `next_val` BIGINT NOT NULL
+);
+INSERT INTO `USERS_SEQ` (`next_val`) SELECT COALESCE(MAX(`id`), 0) + 1 FROM `USERS`;
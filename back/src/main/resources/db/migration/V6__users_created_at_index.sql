@@ -0,0 +1,3 @@
+-- The email filter reads the users created since its previous refresh, ids
+-- being allocated in blocks per node and not in the order they are committed.
+CREATE INDEX `IDX_USERS_CREATED_AT` ON `USERS` (`created_at`);
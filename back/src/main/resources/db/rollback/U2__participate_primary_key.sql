@@ -0,0 +1,17 @@
+-- Reverts V2__participate_primary_key.sql, keeping the participations
+CREATE TABLE `PARTICIPATE_V1` (
+  `user_id` INT,
+  `session_id` INT
+);
+
+INSERT INTO `PARTICIPATE_V1` (`user_id`, `session_id`)
+SELECT `user_id`, `session_id` FROM `PARTICIPATE`;
+
+DROP TABLE `PARTICIPATE`;
+
+ALTER TABLE `PARTICIPATE_V1` RENAME TO `PARTICIPATE`;
+
+ALTER TABLE `PARTICIPATE` ADD FOREIGN KEY (`user_id`) REFERENCES `USERS` (`id`);
+ALTER TABLE `PARTICIPATE` ADD FOREIGN KEY (`session_id`) REFERENCES `SESSIONS` (`id`);
+
+DELETE FROM `flyway_schema_history` WHERE `version` = '2';
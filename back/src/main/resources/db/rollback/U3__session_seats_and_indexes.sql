@@ -0,0 +1,15 @@
+-- Reverts V3__session_seats_and_indexes.sql, dropping the capacities and the
+-- waitlists
+DROP TABLE `WAITLIST`;
+
+-- MySQL dropped the index of the teacher_id foreign key when V3 created one
+-- starting with teacher_id, which therefore cannot go before another backs the key
+CREATE INDEX `IDX_SESSIONS_TEACHER` ON `SESSIONS` (`teacher_id`);
+DROP INDEX `IDX_SESSIONS_TEACHER_DATE_ID` ON `SESSIONS`;
+DROP INDEX `IDX_SESSIONS_DATE_ID` ON `SESSIONS`;
+
+ALTER TABLE `SESSIONS` DROP COLUMN `seats_taken`;
+ALTER TABLE `SESSIONS` DROP COLUMN `capacity`;
+ALTER TABLE `SESSIONS` DROP COLUMN `version`;
+
+DELETE FROM `flyway_schema_history` WHERE `version` = '3';
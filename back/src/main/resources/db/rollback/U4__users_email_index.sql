@@ -0,0 +1,4 @@
+-- Reverts V4__users_email_index.sql
+DROP INDEX `UK_USERS_EMAIL` ON `USERS`;
+
+DELETE FROM `flyway_schema_history` WHERE `version` = '4';
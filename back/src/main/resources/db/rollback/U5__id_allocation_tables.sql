@@ -0,0 +1,7 @@
+-- Reverts V5__id_allocation_tables.sql. The entities have to use identity ids
+-- again before it runs.
+DROP TABLE `USERS_SEQ`;
+DROP TABLE `TEACHERS_SEQ`;
+DROP TABLE `SESSIONS_SEQ`;
+
+DELETE FROM `flyway_schema_history` WHERE `version` = '5';
@@ -0,0 +1,4 @@
+-- Reverts V6__users_created_at_index.sql
+DROP INDEX `IDX_USERS_CREATED_AT` ON `USERS`;
+
+DELETE FROM `flyway_schema_history` WHERE `version` = '6';
@@ -0,0 +1,90 @@
+package com.openclassrooms.starterjwt.benchmark;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.openclassrooms.starterjwt.security.jwt.JwtKeyRing;
+import com.openclassrooms.starterjwt.security.jwt.JwtSigningKey;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+
+/**
+ * Verification throughput per signing algorithm, comparing the pre-built
+ * verifiers of the {@link JwtKeyRing} with a parser built for every call.
+ *
+ * See the backend README for how to run it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    @Param({"HS512", "ES256", "RS256"})
+    public String algorithm;
+
+    private JwtKeyRing keyRing;
+
+    private JwtSigningKey signingKey;
+
+    private String token;
+
+    @Setup
+    public void setUp() throws Exception {
+        SignatureAlgorithm signatureAlgorithm = SignatureAlgorithm.forName(algorithm);
+
+        if (signatureAlgorithm.isHmac()) {
+            signingKey = JwtSigningKey.hmac("bench", signatureAlgorithm, "b3BlbmNsYXNzcm9vbXMtYmVuY2htYXJrLXNlY3JldA==");
+        } else {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance(signatureAlgorithm.isRsa() ? "RSA" : "EC");
+            generator.initialize(signatureAlgorithm.isRsa() ? 2048 : 256);
+            KeyPair keyPair = generator.generateKeyPair();
+            signingKey = new JwtSigningKey("bench", signatureAlgorithm, keyPair.getPrivate(), keyPair.getPublic());
+        }
+
+        keyRing = new JwtKeyRing(Collections.singletonList(signingKey), "bench", false);
+        token = Jwts.builder()
+            .setHeaderParam(JwsHeader.KEY_ID, "bench")
+            .setSubject("yoga@studio.com")
+            .setExpiration(new Date(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1)))
+            .signWith(signatureAlgorithm, signingKey.getSigningKey())
+            .compact();
+    }
+
+    @Benchmark
+    public Claims keyRingVerifier() {
+        return keyRing.parseClaimsJws(token).getBody();
+    }
+
+    @Benchmark
+    public Claims parserPerCall() {
+        return Jwts.parser().setSigningKey(signingKey.getVerificationKey()).parseClaimsJws(token).getBody();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtVerificationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
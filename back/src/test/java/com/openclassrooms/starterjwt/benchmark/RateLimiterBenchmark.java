@@ -0,0 +1,71 @@
+package com.openclassrooms.starterjwt.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.openclassrooms.starterjwt.security.ratelimit.RateLimitProperties;
+import com.openclassrooms.starterjwt.security.ratelimit.RateLimiter;
+
+/**
+ * Rate limiting decisions per second from 8 threads, either spread over many
+ * client keys or all contending on a single bucket.
+ *
+ * See the backend README for how to run it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+    @Param({"1", "10000"})
+    public int keys;
+
+    private RateLimiter rateLimiter;
+
+    private RateLimitProperties.Rule rule;
+
+    private String[] keyNames;
+
+    @Setup
+    public void setUp() {
+        rule = new RateLimitProperties.Rule();
+        rule.setName("benchmark");
+        rule.setCapacity(100);
+        rule.setRefillPeriodMs(1);
+
+        rateLimiter = new RateLimiter(new RateLimitProperties());
+        keyNames = new String[keys];
+        for (int i = 0; i < keys; i++) {
+            keyNames[i] = "10.0." + (i / 256) + "." + (i % 256);
+        }
+    }
+
+    @Benchmark
+    public long tryAcquire() {
+        return rateLimiter.tryAcquire(rule, keyNames[ThreadLocalRandom.current().nextInt(keys)]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RateLimiterBenchmark.class.getSimpleName()).build()).run();
+    }
+}
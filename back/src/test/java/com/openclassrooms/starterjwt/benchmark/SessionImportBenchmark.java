@@ -0,0 +1,166 @@
+package com.openclassrooms.starterjwt.benchmark;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Sessions inserted per second by an import of 10k sessions in one
+ * transaction, with the statements Hibernate sends for each id strategy:
+ * an identity id read back after every single insert, or ids allocated 50 at a
+ * time from SESSIONS_SEQ (pooled-lo) and inserts sent as batches of 50.
+ *
+ * Runs on an embedded H2 database by default, where a round trip is almost
+ * free. The gap is the one to expect on MySQL with
+ * {@code -p url=jdbc:mysql://localhost:3306/test?rewriteBatchedStatements=true -p user=user -p password=123456}.
+ *
+ * See the backend README for how to run it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SessionImportBenchmark {
+
+    private static final int ROWS = 10000;
+
+    private static final int BATCH_SIZE = 50;
+
+    private static final String NAME = "Import benchmark";
+
+    @Param({"identity", "pooled"})
+    public String ids;
+
+    @Param({"jdbc:h2:mem:benchmark;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;NON_KEYWORDS=DATE,VALUE;DB_CLOSE_DELAY=-1"})
+    public String url;
+
+    @Param({"sa"})
+    public String user;
+
+    @Param({""})
+    public String password;
+
+    private Connection connection;
+
+    private Connection allocationConnection;
+
+    @Setup
+    public void setUp() throws SQLException {
+        Flyway.configure().dataSource(url, user, password).baselineOnMigrate(true).load().migrate();
+        connection = DriverManager.getConnection(url, user, password);
+        connection.setAutoCommit(false);
+        // Hibernate allocates the id blocks in their own transaction
+        allocationConnection = DriverManager.getConnection(url, user, password);
+        allocationConnection.setAutoCommit(false);
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteSessions() throws SQLException {
+        try (PreparedStatement delete = connection.prepareStatement("DELETE FROM SESSIONS WHERE name = ?")) {
+            delete.setString(1, NAME);
+            delete.executeUpdate();
+        }
+        connection.commit();
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+        allocationConnection.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long importSessions() throws SQLException {
+        long last = "pooled".equals(ids) ? insertPooled() : insertIdentity();
+        connection.commit();
+        return last;
+    }
+
+    private long insertIdentity() throws SQLException {
+        long last = 0;
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO SESSIONS (name, description, date) VALUES (?, ?, ?)", Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 0; i < ROWS; i++) {
+                bind(insert, 1);
+                insert.executeUpdate();
+                try (ResultSet keys = insert.getGeneratedKeys()) {
+                    keys.next();
+                    last = keys.getLong(1);
+                }
+            }
+        }
+        return last;
+    }
+
+    private long insertPooled() throws SQLException {
+        long next = 0;
+        long hi = 0;
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO SESSIONS (id, name, description, date) VALUES (?, ?, ?, ?)")) {
+            for (int i = 0; i < ROWS; i++) {
+                if (next == hi) {
+                    next = allocateBlock();
+                    hi = next + BATCH_SIZE;
+                }
+                insert.setLong(1, next++);
+                bind(insert, 2);
+                insert.addBatch();
+                if ((i + 1) % BATCH_SIZE == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        return next - 1;
+    }
+
+    private long allocateBlock() throws SQLException {
+        try (Statement select = allocationConnection.createStatement();
+             ResultSet value = select.executeQuery("SELECT next_val FROM SESSIONS_SEQ FOR UPDATE");
+             PreparedStatement update = allocationConnection.prepareStatement("UPDATE SESSIONS_SEQ SET next_val = ?")) {
+            value.next();
+            long lo = value.getLong(1);
+            update.setLong(1, lo + BATCH_SIZE);
+            update.executeUpdate();
+            allocationConnection.commit();
+            return lo;
+        }
+    }
+
+    private static void bind(PreparedStatement insert, int index) throws SQLException {
+        insert.setString(index, NAME);
+        insert.setString(index + 1, "Imported session");
+        insert.setTimestamp(index + 2, new Timestamp(System.currentTimeMillis()));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SessionImportBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -2,6 +2,7 @@ package com.openclassrooms.starterjwt.integration.controllers;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 import static org.hamcrest.Matchers.is;
 import org.junit.jupiter.api.DisplayName;
@@ -22,6 +23,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.integration.support.StatementBudget;
 import com.openclassrooms.starterjwt.mapper.SessionMapper;
 import com.openclassrooms.starterjwt.models.Session;
 import com.openclassrooms.starterjwt.models.Teacher;
@@ -93,6 +95,59 @@ public class SessionControllerTestInt {
             .andExpect(jsonPath("$[?(@.name == '%s')]", "nameDeux").exists());
     }
 
+    @Test
+    @Tag("GET")
+    @DisplayName("Test listing 100 sessions with participants should issue a single statement")
+    @WithMockUser(username = "user@test.com")
+    void testFindAll_100Sessions_shouldStayWithinStatementBudget() throws Exception {
+        // Arrange: 100 sessions of a dedicated teacher, sharing a participant
+        Teacher teacher = teacherRepository.save(new Teacher().setFirstName("Budget").setLastName("TEACHER"));
+        User user = userRepository.findByEmail("yoga@studio.com").get();
+        List<Session> sessions = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            List<User> users = new ArrayList<>();
+            users.add(user);
+            sessions.add(new Session().setName("name" + i).setDate(new Date()).setDescription("description")
+                .setTeacher(teacher).setUsers(users));
+        }
+        sessionRepository.saveAll(sessions);
+
+        try {
+            // Act & Assert: the page of the teacher is read with one statement, its ETag derived from it
+            mockMvc.perform(get("/api/session/").param("size", "100").param("teacherId", teacher.getId().toString())
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(100)))
+                .andExpect(StatementBudget.atMost(1));
+        } finally {
+            // Clean up: only the rows created here, the seeded user must not keep these participations
+            sessionRepository.deleteAll(sessions);
+            teacherRepository.delete(teacher);
+        }
+    }
+
+    @Test
+    @Tag("GET")
+    @DisplayName("Test finding a session with participants should issue at most 3 statements")
+    @WithMockUser(username = "user@test.com")
+    void testFindById_withParticipants_shouldStayWithinStatementBudget() throws Exception {
+        // Arrange: create a session with a participant
+        List<User> users = new ArrayList<>();
+        users.add(userRepository.findByEmail("yoga@studio.com").get());
+        Session session = new Session().setName("name").setDate(new Date()).setDescription("description").setUsers(users);
+        sessionRepository.save(session);
+
+        // Act & Assert: the validator, the session and its participant ids are read with one statement each
+        mockMvc.perform(get("/api/session/" + session.getId())
+            .contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.users.length()", is(1)))
+            .andExpect(StatementBudget.atMost(3));
+
+        // Clean up: the seeded user must not keep this participation
+        sessionRepository.delete(session);
+    }
+
     @Test
     @Tag("POST")
     @DisplayName("Test creating a session should return status OK")
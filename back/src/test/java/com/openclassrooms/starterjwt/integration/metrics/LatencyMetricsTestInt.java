@@ -0,0 +1,82 @@
+package com.openclassrooms.starterjwt.integration.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
+import com.openclassrooms.starterjwt.services.TeacherService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Serves an authenticated request on an embedded H2 database and checks the
+ * timers it leaves behind.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+public class LatencyMetricsTestInt {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private JwtUtils jwtUtils;
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+    @Autowired
+    private TeacherService teacherService;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    @Tag("Metrics")
+    @DisplayName("Test a request should be timed per route, service method, JWT verification and database time")
+    void testRequestTimers() throws Exception {
+        // Arrange: A signed-in user and nothing cached
+        UserDetailsImpl userDetails = (UserDetailsImpl) userDetailsService.loadUserByUsername("yoga@studio.com");
+        String token = jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities()));
+        Teacher teacher = teacherService.findAll().get(0);
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+
+        // Act: Read a teacher
+        mockMvc.perform(get("/api/teacher/" + teacher.getId())
+            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+            .andExpect(status().isOk());
+
+        // Assert: Every layer recorded a timer with its percentiles
+        assertPercentiles(meterRegistry.get("http.server.requests").tag("uri", "/api/teacher/{id}").timer());
+        Timer dbTime = meterRegistry.get("http.server.requests.db").tag("uri", "/api/teacher/{id}").timer();
+        assertTrue(dbTime.count() >= 1);
+        assertTrue(dbTime.max(TimeUnit.NANOSECONDS) > 0);
+        assertPercentiles(meterRegistry.get("service.calls").tag("class", TeacherService.class.getName()).tag("method", "findById").timer());
+        assertPercentiles(meterRegistry.get("jwt.verification").tag("method", "getClaimsFromJwtToken").timer());
+        assertPercentiles(meterRegistry.get("hikaricp.connections.acquire").timer());
+    }
+
+    private static void assertPercentiles(Timer timer) {
+        assertTrue(timer.count() >= 1);
+        assertTrue(timer.takeSnapshot().percentileValues().length > 0);
+    }
+}
@@ -0,0 +1,122 @@
+package com.openclassrooms.starterjwt.integration.migration;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.flywaydb.core.api.MigrationState;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Runs the migrations on an embedded H2 database in MySQL mode and checks that
+ * the lookups behind the main endpoints are served by the expected indexes.
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+public class SchemaMigrationTestInt {
+
+    @Autowired
+    private Flyway flyway;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @Tag("Migration")
+    @DisplayName("Test every migration should be applied at startup")
+    void testMigrationsApplied() {
+        // Act: Read the migration history
+        MigrationInfo[] applied = flyway.info().applied();
+
+        // Assert: All of them succeeded and none is pending
+        assertTrue(applied.length >= 4);
+        assertTrue(Arrays.stream(applied).allMatch(info -> info.getState() == MigrationState.SUCCESS));
+        assertEquals(0, flyway.info().pending().length);
+    }
+
+    @Test
+    @Tag("Migration")
+    @DisplayName("Test the session list should seek into the date index")
+    void testSessionListPlan() {
+        assertUsesIndex("IDX_SESSIONS_DATE_ID",
+            "SELECT id FROM SESSIONS WHERE date >= TIMESTAMP '2024-01-01 00:00:00' AND date < TIMESTAMP '2024-02-01 00:00:00' ORDER BY date DESC, id DESC");
+    }
+
+    @Test
+    @Tag("Migration")
+    @DisplayName("Test the session list of a teacher should seek into the teacher and date index")
+    void testTeacherSessionListPlan() {
+        assertUsesIndex("IDX_SESSIONS_TEACHER_DATE_ID",
+            "SELECT id FROM SESSIONS WHERE teacher_id = 1 AND date < TIMESTAMP '2024-02-01 00:00:00' ORDER BY date DESC, id DESC");
+    }
+
+    @Test
+    @Tag("Migration")
+    @DisplayName("Test the sessions of a user should be read through the user index of PARTICIPATE")
+    void testUserSessionsPlan() {
+        assertUsesIndex("IDX_PARTICIPATE_USER_SESSION",
+            "SELECT s.id FROM PARTICIPATE p JOIN SESSIONS s ON s.id = p.session_id WHERE p.user_id = 1");
+    }
+
+    @Test
+    @Tag("Migration")
+    @DisplayName("Test the participants of a session should be counted without scanning PARTICIPATE")
+    void testParticipantCountPlan() {
+        // H2 may pick the foreign key index over the primary key, both lead with session_id
+        String plan = explain("SELECT COUNT(*) FROM PARTICIPATE WHERE session_id = 1");
+        assertFalse(plan.toUpperCase().contains("TABLESCAN"), () -> "Unexpected table scan in the plan:\n" + plan);
+    }
+
+    @Test
+    @Tag("Migration")
+    @DisplayName("Test the login lookup should use the unique email index")
+    void testUserByEmailPlan() {
+        assertUsesIndex("UK_USERS_EMAIL", "SELECT id, password FROM USERS WHERE email = 'yoga@studio.com'");
+    }
+
+    @Test
+    @Tag("Migration")
+    @DisplayName("Test the email filter refresh should use the creation date index")
+    void testUsersCreatedSincePlan() {
+        assertUsesIndex("IDX_USERS_CREATED_AT", "SELECT id, email FROM USERS WHERE created_at >= '2026-01-01 00:00:00'");
+    }
+
+    @Test
+    @Tag("Migration")
+    @DisplayName("Test a duplicate participation should be rejected by the primary key")
+    void testParticipateDuplicateRejected() {
+        // Arrange: The seeded admin participates in a new session
+        jdbcTemplate.update("INSERT INTO SESSIONS (name, description, date) VALUES ('Migration', 'Description', CURRENT_TIMESTAMP)");
+        Long sessionId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM SESSIONS", Long.class);
+        Long userId = jdbcTemplate.queryForObject("SELECT id FROM USERS WHERE email = 'yoga@studio.com'", Long.class);
+        jdbcTemplate.update("INSERT INTO PARTICIPATE (session_id, user_id) VALUES (?, ?)", sessionId, userId);
+
+        try {
+            // Act & Assert: The same pair cannot be inserted twice
+            assertThrows(DataIntegrityViolationException.class,
+                () -> jdbcTemplate.update("INSERT INTO PARTICIPATE (session_id, user_id) VALUES (?, ?)", sessionId, userId));
+        } finally {
+            jdbcTemplate.update("DELETE FROM PARTICIPATE WHERE session_id = ?", sessionId);
+            jdbcTemplate.update("DELETE FROM SESSIONS WHERE id = ?", sessionId);
+        }
+    }
+
+    private void assertUsesIndex(String index, String query) {
+        String plan = explain(query);
+        assertTrue(plan.toUpperCase().contains(index), () -> "Expected " + index + " in the plan:\n" + plan);
+    }
+
+    private String explain(String query) {
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + query, String.class));
+    }
+}
@@ -0,0 +1,173 @@
+package com.openclassrooms.starterjwt.integration.routing;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.flywaydb.core.Flyway;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import com.openclassrooms.starterjwt.services.SessionService;
+import com.openclassrooms.starterjwt.services.TeacherService;
+import com.openclassrooms.starterjwt.services.UserService;
+
+/**
+ * Runs the application on two embedded H2 databases, the usual one as primary
+ * and a second one as replica. Replication is left out, so a row is only seen
+ * by the reads of the database it was written to.
+ */
+@SpringBootTest(properties = {
+    "oc.app.replicaUrl=jdbc:h2:mem:replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;NON_KEYWORDS=DATE,VALUE;DB_CLOSE_DELAY=-1",
+    "oc.app.replicaUsername=sa"
+})
+@ActiveProfiles("h2")
+public class ReplicaRoutingTestInt {
+
+    private static final long REPLICA_TEACHER_ID = 1000L;
+
+    @Autowired
+    private TeacherService teacherService;
+    @Autowired
+    private SessionService sessionService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    private JdbcTemplate primary;
+
+    private JdbcTemplate replica;
+
+    private User user;
+
+    private List<Session> sessions = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        // The replica is read-only for the application, so its schema is created here
+        Flyway.configure().dataSource(replicaDataSource).load().migrate();
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+        evictCaches();
+
+        user = userRepository.findByEmail("yoga@studio.com").get();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        sessions.forEach(session -> sessionService.delete(session.getId()));
+        replica.update("DELETE FROM TEACHERS WHERE id = ?", REPLICA_TEACHER_ID);
+        evictCaches();
+    }
+
+    @Test
+    @Tag("Routing")
+    @DisplayName("Test the read-only service methods should read from the replica")
+    void testReadsGoToReplica() {
+        // Arrange: A teacher only exists on the replica
+        replica.update("INSERT INTO TEACHERS (id, first_name, last_name) VALUES (?, 'Replica', 'ONLY')", REPLICA_TEACHER_ID);
+
+        // Act: Read it through the services
+        Teacher teacher = teacherService.findById(REPLICA_TEACHER_ID);
+        List<Long> teacherIds = teacherService.findAll().stream().map(Teacher::getId).collect(Collectors.toList());
+
+        // Assert: Both reads went to the replica, and the primary does not have the teacher
+        assertNotNull(teacher);
+        assertTrue(teacherIds.contains(REPLICA_TEACHER_ID));
+        assertEquals(0, count(primary, "SELECT COUNT(*) FROM TEACHERS WHERE id = ?", REPLICA_TEACHER_ID));
+        assertNotNull(userService.findById(user.getId()));
+    }
+
+    @Test
+    @Tag("Routing")
+    @DisplayName("Test the writes should go to the primary")
+    void testWritesGoToPrimary() {
+        // Act: Create a session
+        Session session = createSession();
+
+        // Assert: Only the primary has it, so the replica cannot return it
+        assertEquals(1, count(primary, "SELECT COUNT(*) FROM SESSIONS WHERE id = ?", session.getId()));
+        assertEquals(0, count(replica, "SELECT COUNT(*) FROM SESSIONS WHERE id = ?", session.getId()));
+        evictCaches();
+        assertNull(sessionService.getById(session.getId()));
+    }
+
+    @Test
+    @Tag("Routing")
+    @DisplayName("Test a user who just participated should read the session from the primary")
+    void testParticipantReadsOwnWrites() {
+        // Arrange: The user is signed in and the session has not reached the replica
+        Session session = createSession();
+        authenticate(user);
+        evictCaches();
+        assertNull(sessionService.getById(session.getId()));
+
+        // Act: Participate
+        sessionService.participate(session.getId(), user.getId());
+        evictCaches();
+
+        // Assert: The next reads of the user see the participation
+        Session read = sessionService.getById(session.getId());
+        assertNotNull(read);
+        assertEquals(1, read.getUsers().size());
+        assertTrue(sessionService.findUserPage(user.getId(), null, null, 100, null, null).stream()
+            .anyMatch(summary -> summary.getId().equals(session.getId())));
+    }
+
+    private Session createSession() {
+        Teacher teacher = new Teacher();
+        teacher.setId(primary.queryForObject("SELECT MIN(id) FROM TEACHERS", Long.class));
+        Session session = sessionService.create(new Session().setName("Routing").setDate(new Date())
+            .setDescription("Description").setTeacher(teacher).setUsers(new ArrayList<>()));
+        sessions.add(session);
+        return session;
+    }
+
+    private void evictCaches() {
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+    }
+
+    private static int count(JdbcTemplate jdbcTemplate, String sql, Long id) {
+        return jdbcTemplate.queryForObject(sql, Integer.class, id);
+    }
+
+    private static void authenticate(User user) {
+        UserDetailsImpl userDetails = UserDetailsImpl.builder().id(user.getId()).username(user.getEmail()).build();
+        SecurityContextHolder.getContext().setAuthentication(
+            new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities()));
+    }
+}
@@ -0,0 +1,169 @@
+package com.openclassrooms.starterjwt.integration.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.services.SessionEnrollmentService;
+import com.openclassrooms.starterjwt.services.SessionService;
+import com.openclassrooms.starterjwt.services.TeacherService;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Checks on an embedded H2 database that teachers stay cached across session
+ * writes, and that every write path evicts the sessions and rosters it changes.
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+public class SecondLevelCacheTestInt {
+
+    @Autowired
+    private TeacherService teacherService;
+    @Autowired
+    private SessionService sessionService;
+    @Autowired
+    private SessionEnrollmentService sessionEnrollmentService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+
+    private Teacher teacher;
+
+    private User user;
+
+    private List<Session> sessions = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        statistics = sessionFactory.getStatistics();
+        statistics.clear();
+
+        teacher = teacherService.findAll().get(0);
+        user = userRepository.findByEmail("yoga@studio.com").get();
+    }
+
+    @AfterEach
+    void tearDown() {
+        sessions.forEach(session -> sessionService.delete(session.getId()));
+    }
+
+    @Test
+    @Tag("Cache")
+    @DisplayName("Test a teacher should be read once and stay cached while sessions are written")
+    void testTeacherCachedAcrossSessionWrites() {
+        // Arrange: The teacher is cached by a first read
+        teacherService.findById(teacher.getId());
+
+        // Act: Write a session and its roster, then read the teacher again
+        Session session = createSession();
+        sessionService.participate(session.getId(), user.getId());
+        sessionService.noLongerParticipate(session.getId(), user.getId());
+        teacherService.findById(teacher.getId());
+
+        // Assert: The second read is a hit, and the ratio is published
+        CacheRegionStatistics teachers = statistics.getDomainDataRegionStatistics("teachers");
+        assertTrue(teachers.getHitCount() >= 1);
+        Gauge ratio = meterRegistry.find("hibernate.second.level.cache.hit.ratio").tag("region", "teachers").gauge();
+        assertNotNull(ratio);
+        assertTrue(ratio.value() > 0);
+    }
+
+    @Test
+    @Tag("Cache")
+    @DisplayName("Test participate and unparticipate should evict the cached roster")
+    void testParticipateEvictsRoster() {
+        // Arrange: The empty roster is cached
+        Session session = createSession();
+        assertEquals(Collections.emptyList(), rosterOf(session.getId()));
+
+        // Act & Assert: Every change is seen by the next read
+        sessionService.participate(session.getId(), user.getId());
+        assertEquals(Collections.singletonList(user.getId()), rosterOf(session.getId()));
+
+        sessionService.noLongerParticipate(session.getId(), user.getId());
+        assertEquals(Collections.emptyList(), rosterOf(session.getId()));
+    }
+
+    @Test
+    @Tag("Cache")
+    @DisplayName("Test a bulk enrollment written with JDBC should evict the cached roster")
+    void testBulkEnrollmentEvictsRoster() {
+        // Arrange: The empty roster is cached
+        Session session = createSession();
+        assertEquals(Collections.emptyList(), rosterOf(session.getId()));
+
+        // Act: Enroll the user without going through Hibernate
+        sessionEnrollmentService.enrollUsers(session.getId(), Collections.singletonList(user.getId()));
+
+        // Assert: The roster is read again from the database
+        assertEquals(Collections.singletonList(user.getId()), rosterOf(session.getId()));
+    }
+
+    @Test
+    @Tag("Cache")
+    @DisplayName("Test an updated session should be read with its new values")
+    void testUpdateRefreshesSession() {
+        // Arrange: The session is cached
+        Session session = createSession();
+        transactionTemplate.execute(status -> entityManager.find(Session.class, session.getId()));
+
+        // Act: Rename it
+        sessionService.update(session.getId(), new Session().setName("Renamed").setDate(session.getDate())
+            .setDescription(session.getDescription()).setTeacher(teacher).setUsers(new ArrayList<>()));
+
+        // Assert: The new name is read back
+        assertEquals("Renamed", transactionTemplate.execute(status -> entityManager.find(Session.class, session.getId()).getName()));
+    }
+
+    private Session createSession() {
+        Session session = sessionService.create(new Session().setName("Cache").setDate(new Date())
+            .setDescription("Description").setTeacher(teacher).setUsers(new ArrayList<>()));
+        sessions.add(session);
+        return session;
+    }
+
+    private List<Long> rosterOf(Long sessionId) {
+        return transactionTemplate.execute(status -> entityManager.find(Session.class, sessionId).getUsers().stream()
+            .map(User::getId)
+            .collect(Collectors.toList()));
+    }
+}
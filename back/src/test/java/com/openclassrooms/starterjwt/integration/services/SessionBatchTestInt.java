@@ -0,0 +1,82 @@
+package com.openclassrooms.starterjwt.integration.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.services.SessionService;
+
+/**
+ * Creates sessions in bulk on an embedded H2 database, with ids allocated by
+ * blocks from the SESSIONS_SEQ table.
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+public class SessionBatchTestInt {
+
+    private static final int SESSIONS = 120;
+
+    @Autowired
+    private SessionService sessionService;
+    @Autowired
+    private SessionRepository sessionRepository;
+    @Autowired
+    private TeacherRepository teacherRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private List<Session> created = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        sessionRepository.deleteAll(created);
+    }
+
+    @Test
+    @Tag("Post")
+    @DisplayName("Test a batch of sessions should get distinct pooled ids and synced seats")
+    void testCreateAll() {
+        // Arrange: Sessions spanning several id blocks, the first one with a participant
+        Teacher teacher = teacherRepository.findAll().get(0);
+        User user = userRepository.findByEmail("yoga@studio.com").get();
+        List<Session> sessions = new ArrayList<>();
+        for (int i = 0; i < SESSIONS; i++) {
+            sessions.add(new Session().setName("Batch " + i).setDate(new Date()).setDescription("Description")
+                .setTeacher(teacher).setUsers(i == 0 ? Collections.singletonList(user) : Collections.emptyList()));
+        }
+        Long nextBefore = jdbcTemplate.queryForObject("SELECT next_val FROM SESSIONS_SEQ", Long.class);
+
+        // Act: Create them at once
+        created = sessionService.createAll(sessions);
+
+        // Assert: Every session got its own id from the allocation table, and the seat is counted
+        List<Long> ids = created.stream().map(Session::getId).collect(Collectors.toList());
+        assertEquals(SESSIONS, new HashSet<>(ids).size());
+        assertTrue(ids.stream().allMatch(id -> id >= nextBefore));
+        assertTrue(jdbcTemplate.queryForObject("SELECT next_val FROM SESSIONS_SEQ", Long.class) > ids.stream().mapToLong(Long::longValue).max().getAsLong());
+        assertEquals(SESSIONS, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM SESSIONS WHERE name LIKE 'Batch %'", Integer.class));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT seats_taken FROM SESSIONS WHERE id = ?", Integer.class, ids.get(0)));
+    }
+}
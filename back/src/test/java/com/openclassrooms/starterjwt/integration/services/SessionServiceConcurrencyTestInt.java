@@ -0,0 +1,114 @@
+package com.openclassrooms.starterjwt.integration.services;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.services.Participation;
+import com.openclassrooms.starterjwt.services.SessionService;
+
+@SpringBootTest
+public class SessionServiceConcurrencyTestInt {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionServiceConcurrencyTestInt.class);
+
+    private static final int CALLERS = 1000;
+
+    private static final int CAPACITY = 50;
+
+    private static final int THREADS = 64;
+
+    @Autowired
+    private SessionService sessionService;
+    @Autowired
+    private SessionRepository sessionRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    private Session session;
+
+    private List<User> users = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        if (session != null) {
+            sessionRepository.deleteById(session.getId());
+        }
+        userRepository.deleteAll(users);
+    }
+
+    @Test
+    @Tag("Participate")
+    @DisplayName("Test concurrent participate calls should never oversubscribe a session and should queue the others")
+    void testConcurrentParticipate() throws Exception {
+        // Arrange: A session with fewer seats than callers, and one user per caller
+        session = sessionService.create(new Session().setName("Stress").setDate(new Date()).setDescription("Description").setCapacity(CAPACITY));
+        for (int i = 0; i < CALLERS; i++) {
+            users.add(new User().setLastName("lastName").setFirstName("firstName").setEmail("stress" + i + "-" + System.nanoTime() + "@test.com").setPassword("password").setAdmin(false));
+        }
+        users = userRepository.saveAll(users);
+
+        // Act: Release every caller at once
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Participation>> results = new ArrayList<>();
+        for (User user : users) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return sessionService.participate(session.getId(), user.getId());
+            }));
+        }
+        long startedAt = System.nanoTime();
+        start.countDown();
+        int participating = 0;
+        int waitlisted = 0;
+        for (Future<Participation> result : results) {
+            if (result.get() == Participation.PARTICIPATING) {
+                participating++;
+            } else {
+                waitlisted++;
+            }
+        }
+        long elapsedNanos = System.nanoTime() - startedAt;
+        executor.shutdown();
+        logger.info("{} participate calls on {} threads in {} ms ({} calls/s)",
+            CALLERS, THREADS, elapsedNanos / 1_000_000, Math.round(CALLERS * 1e9 / elapsedNanos));
+
+        // Assert: Exactly the capacity got a seat, in the counter as in the join table
+        assertEquals(CAPACITY, participating);
+        assertEquals(CALLERS - CAPACITY, waitlisted);
+        Session stored = sessionService.getById(session.getId());
+        assertEquals(CAPACITY, stored.getUsers().size());
+        assertEquals(CAPACITY, stored.getSeatsTaken());
+
+        // Act: A participant leaves
+        Optional<Long> next = sessionRepository.findNextWaitlisted(session.getId());
+        assertTrue(next.isPresent());
+        sessionService.noLongerParticipate(session.getId(), stored.getUsers().get(0).getId());
+
+        // Assert: The first waitlisted user took the seat
+        stored = sessionService.getById(session.getId());
+        assertEquals(CAPACITY, stored.getUsers().size());
+        assertTrue(stored.getUsers().stream().anyMatch(user -> user.getId().equals(next.get())));
+    }
+}
@@ -0,0 +1,37 @@
+package com.openclassrooms.starterjwt.integration.support;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import com.openclassrooms.starterjwt.metrics.RequestDbUsage;
+import com.openclassrooms.starterjwt.metrics.RequestDbUsageFilter;
+
+/**
+ * MockMvc matchers on the statements a request issued through Hibernate, as
+ * counted by {@link RequestDbUsageFilter}:
+ * <pre>
+ * mockMvc.perform(get("/api/session"))
+ *     .andExpect(status().isOk())
+ *     .andExpect(StatementBudget.atMost(2));
+ * </pre>
+ */
+public final class StatementBudget {
+
+    private StatementBudget() {
+    }
+
+    public static ResultMatcher atMost(int statements) {
+        return result -> {
+            RequestDbUsage usage = (RequestDbUsage) result.getRequest().getAttribute(RequestDbUsageFilter.USAGE_ATTRIBUTE);
+            assertNotNull(usage, "The request was not counted, is MockMvc built with the filters?");
+            assertTrue(usage.getStatements() <= statements, () -> {
+                Map.Entry<String, Integer> mostRepeated = usage.getMostRepeated();
+                return "Expected at most " + statements + " statements, but the request issued " + usage.getStatements()
+                    + ", " + mostRepeated.getValue() + " times: " + mostRepeated.getKey();
+            });
+        };
+    }
+}
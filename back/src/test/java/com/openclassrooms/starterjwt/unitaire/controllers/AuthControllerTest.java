@@ -1,7 +1,5 @@
 package com.openclassrooms.starterjwt.unitaire.controllers;
 
-import java.util.Optional;
-
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -13,9 +11,12 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import static org.mockito.ArgumentMatchers.any;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -24,6 +25,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import com.openclassrooms.starterjwt.controllers.AuthController;
+import com.openclassrooms.starterjwt.exception.PasswordHashingRejectedException;
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.payload.request.LoginRequest;
 import com.openclassrooms.starterjwt.payload.request.SignupRequest;
@@ -31,6 +33,7 @@ import com.openclassrooms.starterjwt.payload.response.JwtResponse;
 import com.openclassrooms.starterjwt.payload.response.MessageResponse;
 import com.openclassrooms.starterjwt.repository.UserRepository;
 import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
+import com.openclassrooms.starterjwt.security.services.EmailBloomFilter;
 import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
 
 @ExtendWith(MockitoExtension.class)
@@ -67,6 +70,9 @@ public class AuthControllerTest {
     @Mock
     private UserDetailsImpl userDetailsImpl;
 
+    @Mock
+    private EmailBloomFilter emailBloomFilter;
+
     @BeforeEach
     void setUp() {
         // No specific setup required for this test
@@ -86,9 +92,7 @@ public class AuthControllerTest {
         when(userDetailsImpl.getId()).thenReturn(61L);
         when(userDetailsImpl.getFirstName()).thenReturn("firstname");
         when(userDetailsImpl.getLastName()).thenReturn("lastname");
-        when(mockedUser.isAdmin()).thenReturn(true);
-
-        when(userRepository.findByEmail(userDetailsImpl.getUsername())).thenReturn(Optional.of(mockedUser));
+        when(userDetailsImpl.getAdmin()).thenReturn(true);
     
         // Act: Call the method under test
         ResponseEntity<?> res = authController.authenticateUser(loginRequest);
@@ -104,16 +108,16 @@ public class AuthControllerTest {
         assertEquals("lastname", jwtResponse.getLastName());
         assertTrue(jwtResponse.getAdmin());
 
-        // Verify interactions with mocks
+        // Verify interactions with mocks: the principal already carries the admin flag
         verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
         verify(jwtUtils).generateJwtToken(authentication);
-        verify(userRepository).findByEmail("user@test.com");
+        verify(userRepository, never()).findByEmail(any());
     }
 
     @Test
     @Tag("Auth")
-    @DisplayName("Test user authentication when user is not found should return default JWT response")
-    void testAuthenticateUserIsNull() {
+    @DisplayName("Test user authentication when the principal has no admin flag should return a non admin JWT response")
+    void testAuthenticateUserAdminIsNull() {
         // Arrange: Set up mock responses
         String mockToken = "154612dfssqdqsdqsdqsdqsdqsdsqdf544ffze";
         when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class))).thenReturn(authentication);
@@ -124,8 +128,7 @@ public class AuthControllerTest {
         when(userDetailsImpl.getId()).thenReturn(61L);
         when(userDetailsImpl.getFirstName()).thenReturn("firstname");
         when(userDetailsImpl.getLastName()).thenReturn("lastname");
-
-        when(userRepository.findByEmail(userDetailsImpl.getUsername())).thenReturn(Optional.empty());
+        when(userDetailsImpl.getAdmin()).thenReturn(null);
     
         // Act: Call the method under test
         ResponseEntity<?> res = authController.authenticateUser(loginRequest);
@@ -142,6 +145,41 @@ public class AuthControllerTest {
         assertFalse(jwtResponse.getAdmin());
     }
 
+    @Test
+    @Tag("Auth")
+    @DisplayName("Test user authentication when the password hashing pool is saturated should return 503")
+    void testAuthenticateUserHashingRejected() {
+        // Arrange: The password verification is rejected by the hashing pool
+        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+            .thenThrow(new PasswordHashingRejectedException(1));
+
+        // Act: Call the method under test
+        ResponseEntity<?> res = authController.authenticateUser(loginRequest);
+
+        // Assert: Verify the response asks the client to retry later
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, res.getStatusCode());
+        assertEquals("1", res.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        verify(jwtUtils, never()).generateJwtToken(any());
+    }
+
+    @Test
+    @Tag("Auth")
+    @DisplayName("Test user registration when the password hashing pool is saturated should return 503")
+    void testRegisterUserHashingRejected() {
+        // Arrange: The password hash is rejected by the hashing pool
+        when(signupRequest.getPassword()).thenReturn("password");
+        when(userRepository.existsByEmail(signupRequest.getEmail())).thenReturn(false);
+        when(passwordEncoder.encode("password")).thenThrow(new PasswordHashingRejectedException(1));
+
+        // Act: Call the method under test
+        ResponseEntity<?> res = authController.registerUser(signupRequest);
+
+        // Assert: Verify the response and that no user was created
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, res.getStatusCode());
+        assertEquals("1", res.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        verify(userRepository, never()).save(any(User.class));
+    }
+
     @Test
     @Tag("Auth")
     @DisplayName("Test valid user registration should return success message")
@@ -167,6 +205,30 @@ public class AuthControllerTest {
         verify(userRepository).existsByEmail("test@test.com");
         verify(passwordEncoder).encode("password");
         verify(userRepository).save(any(User.class));
+        verify(emailBloomFilter).put("test@test.com");
+    }
+
+    @Test
+    @Tag("Auth")
+    @DisplayName("Test user registration racing another registration of the same email should return error message")
+    void testRegisterUserConcurrentDuplicate() {
+        // Arrange: The email is free when checked, then taken before the insert
+        when(signupRequest.getEmail()).thenReturn("new@test.com");
+        when(signupRequest.getLastName()).thenReturn("lastname");
+        when(signupRequest.getFirstName()).thenReturn("firstname");
+        when(signupRequest.getPassword()).thenReturn("password");
+        when(userRepository.existsByEmail("new@test.com")).thenReturn(false);
+        when(passwordEncoder.encode("password")).thenReturn("encodedPassword");
+        when(userRepository.save(any(User.class))).thenThrow(new DataIntegrityViolationException("duplicate email"));
+
+        // Act: Call the method under test
+        ResponseEntity<?> res = authController.registerUser(signupRequest);
+
+        // Assert: The unique constraint violation is reported as a taken email
+        assertEquals(HttpStatus.BAD_REQUEST, res.getStatusCode());
+        MessageResponse message = (MessageResponse) res.getBody();
+        assertEquals("Error: Email is already taken!", message.getMessage());
+        verify(emailBloomFilter, never()).put(any());
     }
 
     @Test
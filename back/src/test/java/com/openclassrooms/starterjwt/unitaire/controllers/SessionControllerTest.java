@@ -1,27 +1,60 @@
 package com.openclassrooms.starterjwt.unitaire.controllers;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.isNull;
 import org.mockito.Mock;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.openclassrooms.starterjwt.controllers.SessionController;
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.dto.SessionSummaryDto;
 import com.openclassrooms.starterjwt.mapper.SessionMapper;
 import com.openclassrooms.starterjwt.models.Session;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.payload.request.BulkEnrollmentRequest;
+import com.openclassrooms.starterjwt.payload.request.SessionBatchRequest;
+import com.openclassrooms.starterjwt.payload.response.EnrollmentResult;
+import com.openclassrooms.starterjwt.repository.SessionDetail;
+import com.openclassrooms.starterjwt.repository.SessionSummary;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import com.openclassrooms.starterjwt.services.Participation;
+import com.openclassrooms.starterjwt.services.EnrollmentStatus;
+import com.openclassrooms.starterjwt.services.SessionCursor;
+import com.openclassrooms.starterjwt.services.SessionEnrollmentService;
+import com.openclassrooms.starterjwt.services.SessionExportFormat;
+import com.openclassrooms.starterjwt.services.SessionExportService;
 import com.openclassrooms.starterjwt.services.SessionService;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,8 +66,12 @@ public class SessionControllerTest {
     @Mock
     private SessionMapper sessionMapper;
 
-    // Create the instance with mocked dependencies
-    @InjectMocks
+    @Mock
+    private SessionExportService sessionExportService;
+
+    @Mock
+    private SessionEnrollmentService sessionEnrollmentService;
+
     private SessionController sessionController;
 
     @Mock
@@ -43,12 +80,28 @@ public class SessionControllerTest {
     @Mock
     private Session mockedSession;
 
+    @Mock
+    private SessionSummary mockedSessionSummary;
+
+    @Mock
+    private SessionDetail mockedSessionDetail;
+
     @Mock
     private User mockedUser;
 
+    private MockHttpServletRequest request;
+
     @BeforeEach
     void setUp() {
-        // No specific setup required for these tests
+        // Create the instance with mocked dependencies, pages of 2 sessions by default and at most 3
+        sessionController = new SessionController(sessionService, sessionMapper, sessionExportService, sessionEnrollmentService, 2, 3);
+        request = new MockHttpServletRequest("GET", "/api/session");
+        // Start anonymous, whatever the tests of other controllers left in the context
+        SecurityContextHolder.clearContext();
+    }
+
+    private ServletWebRequest webRequest() {
+        return new ServletWebRequest(request, new MockHttpServletResponse());
     }
 
     @Test
@@ -56,16 +109,36 @@ public class SessionControllerTest {
     @DisplayName("Test finding a session by valid ID should return the session")
     void testFindByIdNotNull() {
         Long mockId = 645L;
-        when(sessionService.getById(mockId)).thenReturn(mockedSession);
+        when(sessionService.getETag(mockId)).thenReturn("645-3");
+        when(sessionService.getDetailById(mockId)).thenReturn(mockedSessionDetail);
+        when(sessionMapper.toDetailDto(mockedSessionDetail)).thenReturn(mockedSessionDto);
 
         // Act: Call the method under test
-        ResponseEntity<?> res = sessionController.findById(mockId.toString());
+        ResponseEntity<?> res = sessionController.findById(mockId.toString(), webRequest());
 
         // Assert: Verify the response
         assertEquals(HttpStatus.OK, res.getStatusCode());
+        assertEquals("\"645-3\"", res.getHeaders().getETag());
+        assertEquals(mockedSessionDto, res.getBody());
 
-        // Verify interactions with the mock
-        verify(sessionService).getById(mockId);
+        // Verify that the projection was read instead of the entity
+        verify(sessionService).getDetailById(mockId);
+        verify(sessionService, never()).getById(mockId);
+    }
+
+    @Test
+    @Tag("GET")
+    @DisplayName("Test finding a session deleted after its ETag was read should return NOT FOUND")
+    void testFindByIdDeleted() {
+        Long mockId = 645L;
+        when(sessionService.getETag(mockId)).thenReturn("645-3");
+        when(sessionService.getDetailById(mockId)).thenReturn(null);
+
+        // Act: Call the method under test
+        ResponseEntity<?> res = sessionController.findById(mockId.toString(), webRequest());
+
+        // Assert: Verify the response
+        assertEquals(HttpStatus.NOT_FOUND, res.getStatusCode());
     }
 
     @Test
@@ -73,16 +146,34 @@ public class SessionControllerTest {
     @DisplayName("Test finding a session by ID that does not exist should return NOT FOUND")
     void testFindByIdNull() {
         Long mockId = 645L;
-        when(sessionService.getById(mockId)).thenReturn(null);
+        when(sessionService.getETag(mockId)).thenReturn(null);
 
         // Act: Call the method under test
-        ResponseEntity<?> res = sessionController.findById(mockId.toString());
+        ResponseEntity<?> res = sessionController.findById(mockId.toString(), webRequest());
 
         // Assert: Verify the response
         assertEquals(HttpStatus.NOT_FOUND, res.getStatusCode());
 
         // Verify interactions with the mock
-        verify(sessionService).getById(mockId);
+        verify(sessionService, never()).getDetailById(mockId);
+    }
+
+    @Test
+    @Tag("GET")
+    @DisplayName("Test finding an unchanged session should return NOT MODIFIED without loading it")
+    void testFindByIdNotModified() {
+        // Arrange: The client already has the current version
+        Long mockId = 645L;
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"645-3\"");
+        when(sessionService.getETag(mockId)).thenReturn("645-3");
+
+        // Act: Call the method under test
+        ResponseEntity<?> res = sessionController.findById(mockId.toString(), webRequest());
+
+        // Assert: Verify the response has no body and nothing was loaded
+        assertEquals(HttpStatus.NOT_MODIFIED, res.getStatusCode());
+        assertNull(res.getBody());
+        verify(sessionService, never()).getDetailById(mockId);
     }
 
     @Test
@@ -92,7 +183,7 @@ public class SessionControllerTest {
         String mockId = "645L";
 
         // Act: Call the method under test
-        ResponseEntity<?> res = sessionController.findById(mockId);
+        ResponseEntity<?> res = sessionController.findById(mockId, webRequest());
 
         // Assert: Verify the response
         assertEquals(HttpStatus.BAD_REQUEST, res.getStatusCode());
@@ -100,28 +191,150 @@ public class SessionControllerTest {
 
     @Test
     @Tag("GET")
-    @DisplayName("Test finding all sessions should return a list of session DTOs")
+    @DisplayName("Test finding all sessions should return a list of session summaries")
     void testFindAll() {
         // Arrange: Set up mock responses
-        List<Session> sessions = new ArrayList<>();
-        sessions.add(mockedSession);
-        List<SessionDto> sessionDtos = new ArrayList<>();
-        sessionDtos.add(mockedSessionDto);
+        List<SessionSummary> sessions = new ArrayList<>();
+        sessions.add(mockedSessionSummary);
+        List<SessionSummaryDto> sessionDtos = new ArrayList<>();
+        sessionDtos.add(new SessionSummaryDto());
 
-        when(sessionMapper.toDto(sessions)).thenReturn(sessionDtos);
-        when(sessionService.findAll()).thenReturn(sessions);
+        when(sessionMapper.toSummaryDto(sessions)).thenReturn(sessionDtos);
+        when(sessionService.findPage(null, 3, null, null, null, null)).thenReturn(sessions);
+        when(sessionService.getCollectionETag(sessions, null)).thenReturn("page");
 
         // Act: Call the method under test
-        ResponseEntity<?> res = sessionController.findAll();
+        ResponseEntity<?> res = sessionController.findAll(null, null, null, null, null, webRequest());
 
-        // Assert: Verify the response
+        // Assert: Verify the response holds the only page
         assertEquals(HttpStatus.OK, res.getStatusCode());
-        List<SessionDto> result = (List<SessionDto>) res.getBody();
+        List<SessionSummaryDto> result = (List<SessionSummaryDto>) res.getBody();
         assertEquals(sessionDtos, result);
+        assertNull(res.getHeaders().getFirst(SessionController.NEXT_CURSOR_HEADER));
+        assertEquals("\"page\"", res.getHeaders().getETag());
 
         // Verify interactions with the mocks
-        verify(sessionService).findAll(); 
-        verify(sessionMapper).toDto(sessions); 
+        verify(sessionService).findPage(null, 3, null, null, null, null);
+        verify(sessionMapper).toSummaryDto(sessions); 
+    }
+
+    @Test
+    @Tag("GET")
+    @DisplayName("Test finding all sessions when the list is unchanged should return NOT MODIFIED")
+    void testFindAllNotModified() {
+        // Arrange: The client already has the current list
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"page\"");
+        List<SessionSummary> sessions = Collections.singletonList(mockedSessionSummary);
+        when(sessionService.findPage(null, 3, null, null, null, null)).thenReturn(sessions);
+        when(sessionService.getCollectionETag(sessions, null)).thenReturn("page");
+
+        // Act: Call the method under test
+        ResponseEntity<?> res = sessionController.findAll(null, null, null, null, null, webRequest());
+
+        // Assert: Verify the page was not mapped
+        assertEquals(HttpStatus.NOT_MODIFIED, res.getStatusCode());
+        verify(sessionMapper, never()).toSummaryDto(anyList());
+    }
+
+    @Test
+    @Tag("GET")
+    @DisplayName("Test finding all sessions should flag the sessions of the authenticated user")
+    void testFindAllAuthenticated() {
+        // Arrange: The user 5 is authenticated
+        UserDetailsImpl principal = UserDetailsImpl.builder().id(5L).username("user@test.com").build();
+        SecurityContextHolder.setContext(new SecurityContextImpl(
+            new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities())));
+        when(sessionService.getCollectionETag(anyList(), isNull())).thenReturn("page");
+        when(sessionService.findPage(null, 3, null, null, null, 5L)).thenReturn(new ArrayList<>());
+
+        try {
+            // Act: Call the method under test
+            sessionController.findAll(null, null, null, null, null, webRequest());
+
+            // Assert: The participation flag is computed for the authenticated user
+            verify(sessionService).findPage(null, 3, null, null, null, 5L);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @Test
+    @Tag("GET")
+    @DisplayName("Test finding all sessions with more sessions than the page should return the next cursor")
+    void testFindAllNextPage() {
+        // Arrange: One more session than the page size is found
+        Date date = new Date(1700000000000L);
+        SessionSummary last = mock(SessionSummary.class);
+        when(last.getDate()).thenReturn(date);
+        when(last.getId()).thenReturn(8L);
+        Date from = new Date(0L);
+        when(sessionService.getCollectionETag(anyList(), anyString())).thenReturn("page");
+        when(sessionService.findPage(null, 3, from, null, 1L, null))
+            .thenReturn(Arrays.asList(mockedSessionSummary, last, mockedSessionSummary));
+
+        // Act: Call the method under test
+        ResponseEntity<?> res = sessionController.findAll(null, null, from, null, 1L, webRequest());
+
+        // Assert: Only the page is returned, with the cursor of its last session
+        assertEquals(HttpStatus.OK, res.getStatusCode());
+        verify(sessionMapper).toSummaryDto(Arrays.asList(mockedSessionSummary, last));
+        SessionCursor cursor = SessionCursor.decode(res.getHeaders().getFirst(SessionController.NEXT_CURSOR_HEADER));
+        assertEquals(date, cursor.getDate());
+        assertEquals(8L, cursor.getId());
+    }
+
+    @Test
+    @Tag("GET")
+    @DisplayName("Test finding all sessions after a cursor with a too large size should read a capped page")
+    void testFindAllCursorCapped() {
+        // Arrange: A cursor from a previous page
+        SessionCursor cursor = new SessionCursor(new Date(1700000000000L), 8L);
+        when(sessionService.getCollectionETag(anyList(), isNull())).thenReturn("page");
+        when(sessionService.findPage(cursor, 4, null, null, null, null)).thenReturn(new ArrayList<>());
+
+        // Act: Ask for more sessions than allowed
+        ResponseEntity<?> res = sessionController.findAll(cursor.encode(), 1000, null, null, null, webRequest());
+
+        // Assert: The page size is capped
+        assertEquals(HttpStatus.OK, res.getStatusCode());
+        verify(sessionService).findPage(cursor, 4, null, null, null, null);
+    }
+
+    @Test
+    @Tag("GET")
+    @DisplayName("Test finding all sessions with an invalid cursor or size should return BAD REQUEST")
+    void testFindAllNotValid() {
+        // Act & Assert: Neither request reaches the service
+        assertEquals(HttpStatus.BAD_REQUEST, sessionController.findAll("not a cursor", null, null, null, null, webRequest()).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, sessionController.findAll(null, 0, null, null, null, webRequest()).getStatusCode());
+        verify(sessionService, never()).findPage(any(), anyInt(), any(), any(), any(), any());
+    }
+
+    @Test
+    @Tag("GET")
+    @DisplayName("Test exporting the sessions as CSV should stream the export as an attachment")
+    void testExport() throws IOException {
+        // Act: Call the method under test and write the streamed body
+        ResponseEntity<StreamingResponseBody> res = sessionController.export("csv");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        res.getBody().writeTo(out);
+
+        // Assert: The CSV export is written to the response stream
+        assertEquals(HttpStatus.OK, res.getStatusCode());
+        assertEquals("text/csv", res.getHeaders().getContentType().toString());
+        assertEquals("attachment; filename=\"sessions.csv\"", res.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION));
+        verify(sessionExportService).export(SessionExportFormat.CSV, out);
+    }
+
+    @Test
+    @Tag("GET")
+    @DisplayName("Test exporting the sessions in an unknown format should return BAD REQUEST")
+    void testExportNotValid() {
+        // Act: Call the method under test
+        ResponseEntity<StreamingResponseBody> res = sessionController.export("xml");
+
+        // Assert: Verify the response
+        assertEquals(HttpStatus.BAD_REQUEST, res.getStatusCode());
     }
 
     @Test
@@ -144,6 +357,26 @@ public class SessionControllerTest {
         verify(sessionMapper).toDto(mockedSession); 
     }
 
+    @Test
+    @Tag("POST")
+    @DisplayName("Test creating a batch of sessions should return the created session DTOs")
+    void testCreateAll() {
+        // Arrange: A batch of one session
+        SessionBatchRequest request = new SessionBatchRequest();
+        request.setSessions(Arrays.asList(mockedSessionDto));
+        List<Session> sessions = Arrays.asList(mockedSession);
+        when(sessionMapper.toEntity(request.getSessions())).thenReturn(sessions);
+        when(sessionService.createAll(sessions)).thenReturn(sessions);
+        when(sessionMapper.toDto(sessions)).thenReturn(Arrays.asList(mockedSessionDto));
+
+        // Act: Call the method under test
+        ResponseEntity<?> res = sessionController.createAll(request);
+
+        // Assert: Verify the response
+        assertEquals(HttpStatus.OK, res.getStatusCode());
+        assertEquals(Arrays.asList(mockedSessionDto), res.getBody());
+    }
+
     @Test
     @Tag("PUT")
     @DisplayName("Test updating a session should return the updated session DTO")
@@ -182,7 +415,7 @@ public class SessionControllerTest {
     @Tag("DELETE")
     @DisplayName("Test deleting a session by valid ID should return OK")
     void testDeleteByIdValid() {
-        when(sessionService.getById(mockedSession.getId())).thenReturn(mockedSession);
+        when(sessionService.exists(mockedSession.getId())).thenReturn(true);
 
         // Act: Call the method under test
         ResponseEntity<?> res = sessionController.save(mockedSession.getId().toString());
@@ -190,15 +423,16 @@ public class SessionControllerTest {
         // Assert: Verify the response
         assertEquals(HttpStatus.OK, res.getStatusCode());
 
-        // Verify interactions with the mock
+        // Verify interactions with the mock, the roster is not loaded to check the session exists
         verify(sessionService).delete(mockedSession.getId());
+        verify(sessionService, never()).getById(any());
     }
 
     @Test
     @Tag("DELETE")
     @DisplayName("Test deleting a session by ID that does not exist should return NOT FOUND")
     void testDeleteByIdNull() {
-        when(sessionService.getById(mockedSession.getId())).thenReturn(null);
+        when(sessionService.exists(mockedSession.getId())).thenReturn(false);
 
         // Act: Call the method under test
         ResponseEntity<?> res = sessionController.save(mockedSession.getId().toString());
@@ -234,6 +468,20 @@ public class SessionControllerTest {
         verify(sessionService).participate(mockedSession.getId(), mockedUser.getId());
     }
 
+    @Test
+    @Tag("POST")
+    @DisplayName("Test participating in a full session should return ACCEPTED")
+    void testParticipateWaitlisted() {
+        // Arrange: The session is full
+        when(sessionService.participate(mockedSession.getId(), mockedUser.getId())).thenReturn(Participation.WAITLISTED);
+
+        // Act: Call the method under test
+        ResponseEntity<?> res = sessionController.participate(mockedSession.getId().toString(), mockedUser.getId().toString());
+
+        // Assert: The user is queued rather than participating
+        assertEquals(HttpStatus.ACCEPTED, res.getStatusCode());
+    }
+
     @Test
     @Tag("POST")
     @DisplayName("Test participating in a session with invalid session ID should return BAD REQUEST")
@@ -247,6 +495,59 @@ public class SessionControllerTest {
         assertEquals(HttpStatus.BAD_REQUEST, res.getStatusCode());
     }
 
+    @Test
+    @Tag("POST")
+    @DisplayName("Test enrolling several users in a session should return one result per user")
+    void testParticipateAll() {
+        // Arrange: Two users, the second one is unknown
+        BulkEnrollmentRequest request = new BulkEnrollmentRequest();
+        request.setIds(Arrays.asList(1L, 2L));
+        List<EnrollmentResult> results = Arrays.asList(
+            new EnrollmentResult(5L, 1L, EnrollmentStatus.PARTICIPATING),
+            new EnrollmentResult(5L, 2L, EnrollmentStatus.NOT_FOUND));
+        when(sessionEnrollmentService.enrollUsers(5L, request.getIds())).thenReturn(results);
+
+        // Act: Call the method under test
+        ResponseEntity<?> res = sessionController.participateAll("5", request);
+
+        // Assert: The report is returned as is
+        assertEquals(HttpStatus.OK, res.getStatusCode());
+        assertEquals(results, res.getBody());
+    }
+
+    @Test
+    @Tag("POST")
+    @DisplayName("Test enrolling a user in several sessions should return one result per session")
+    void testParticipateInAll() {
+        // Arrange: Two sessions, the second one is full
+        BulkEnrollmentRequest request = new BulkEnrollmentRequest();
+        request.setIds(Arrays.asList(5L, 6L));
+        List<EnrollmentResult> results = Arrays.asList(
+            new EnrollmentResult(5L, 1L, EnrollmentStatus.PARTICIPATING),
+            new EnrollmentResult(6L, 1L, EnrollmentStatus.WAITLISTED));
+        when(sessionEnrollmentService.enrollSessions(1L, request.getIds())).thenReturn(results);
+
+        // Act: Call the method under test
+        ResponseEntity<?> res = sessionController.participateInAll("1", request);
+
+        // Assert: The report is returned as is
+        assertEquals(HttpStatus.OK, res.getStatusCode());
+        assertEquals(results, res.getBody());
+    }
+
+    @Test
+    @Tag("POST")
+    @DisplayName("Test enrolling users in a session with invalid session ID should return BAD REQUEST")
+    void testParticipateAllNotValid() {
+        // Arrange: A valid body
+        BulkEnrollmentRequest request = new BulkEnrollmentRequest();
+        request.setIds(Arrays.asList(1L, 2L));
+
+        // Act & Assert: The service is not called
+        assertEquals(HttpStatus.BAD_REQUEST, sessionController.participateAll("invalid", request).getStatusCode());
+        verify(sessionEnrollmentService, never()).enrollUsers(any(), any());
+    }
+
     @Test
     @Tag("DELETE")
     @DisplayName("Test cancelling participation in a session with valid IDs should return OK")
@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -11,11 +12,18 @@ import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import static org.mockito.ArgumentMatchers.any;
 import org.mockito.Mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import com.openclassrooms.starterjwt.controllers.TeacherController;
 import com.openclassrooms.starterjwt.dto.TeacherDto;
@@ -42,9 +50,15 @@ public class TeacherControllerTest {
     @InjectMocks
     TeacherController teacherController;
 
+    private MockHttpServletRequest request;
+
     @BeforeEach
     void setUp() {
-        // No specific setup required for these tests
+        request = new MockHttpServletRequest("GET", "/api/teacher");
+    }
+
+    private ServletWebRequest webRequest() {
+        return new ServletWebRequest(request, new MockHttpServletResponse());
     }
 
     @Test
@@ -53,14 +67,16 @@ public class TeacherControllerTest {
     void testFindByIdValid() {
         // Arrange: Set up mock responses
         Long mockId = 456L;
+        when(teacherService.getETag(mockId)).thenReturn("456-1700000000000");
         when(teacherService.findById(mockId)).thenReturn(mockedTeacher);
         when(teacherMapper.toDto(mockedTeacher)).thenReturn(mockedTeacherDto);
 
         // Act: Call the method under test
-        ResponseEntity<?> res = teacherController.findById(mockId.toString());
+        ResponseEntity<?> res = teacherController.findById(mockId.toString(), webRequest());
 
         // Assert: Verify the response
         assertEquals(HttpStatus.OK, res.getStatusCode());
+        assertEquals("\"456-1700000000000\"", res.getHeaders().getETag());
         assertTrue(res.getBody() instanceof TeacherDto);
 
         TeacherDto resultTeacherDto = (TeacherDto) res.getBody();
@@ -74,13 +90,33 @@ public class TeacherControllerTest {
     void testFindByIdIsNull() {
         // Arrange: Set up mock responses
         Long mockId = 456L;
-        when(teacherService.findById(mockId)).thenReturn(null);
+        when(teacherService.getETag(mockId)).thenReturn(null);
 
         // Act: Call the method under test
-        ResponseEntity<?> res = teacherController.findById(mockId.toString());
+        ResponseEntity<?> res = teacherController.findById(mockId.toString(), webRequest());
 
         // Assert: Verify the response
         assertEquals(HttpStatus.NOT_FOUND, res.getStatusCode());
+        verify(teacherService, never()).findById(mockId);
+    }
+
+    @Test
+    @Tag("GET")
+    @DisplayName("Test finding an unchanged teacher should return NOT MODIFIED without loading it")
+    void testFindByIdNotModified() {
+        // Arrange: The client already has the current version
+        Long mockId = 456L;
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"456-1700000000000\"");
+        when(teacherService.getETag(mockId)).thenReturn("456-1700000000000");
+
+        // Act: Call the method under test
+        ResponseEntity<?> res = teacherController.findById(mockId.toString(), webRequest());
+
+        // Assert: Verify the response has no body and nothing was loaded
+        assertEquals(HttpStatus.NOT_MODIFIED, res.getStatusCode());
+        assertNull(res.getBody());
+        verify(teacherService, never()).findById(mockId);
+        verify(teacherMapper, never()).toDto(any(Teacher.class));
     }
 
     @Test
@@ -91,7 +127,7 @@ public class TeacherControllerTest {
         String mockId = "456L";
 
         // Act: Call the method under test
-        ResponseEntity<?> res = teacherController.findById(mockId);
+        ResponseEntity<?> res = teacherController.findById(mockId, webRequest());
 
         // Assert: Verify the response
         assertEquals(HttpStatus.BAD_REQUEST, res.getStatusCode());
@@ -108,14 +144,32 @@ public class TeacherControllerTest {
         List<TeacherDto> dtoTeachers = new ArrayList<>();
         dtoTeachers.add(mockedTeacherDto);
 
+        when(teacherService.getCollectionETag()).thenReturn("2-1700000000000-2");
         when(teacherService.findAll()).thenReturn(teachers);
         when(teacherMapper.toDto(teachers)).thenReturn(dtoTeachers);
 
         // Act: Call the method under test
-        ResponseEntity<?> res = teacherController.findAll();
+        ResponseEntity<?> res = teacherController.findAll(webRequest());
 
         // Assert: Verify the response
         assertEquals(res.getStatusCode(), HttpStatus.OK);
         assertEquals(res.getBody(), dtoTeachers);
+        assertEquals("\"2-1700000000000-2\"", res.getHeaders().getETag());
+    }
+
+    @Test
+    @Tag("GET")
+    @DisplayName("Test finding all teachers when the list is unchanged should return NOT MODIFIED")
+    void testFindAllNotModified() {
+        // Arrange: The client already has the current list
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"2-1700000000000-2\"");
+        when(teacherService.getCollectionETag()).thenReturn("2-1700000000000-2");
+
+        // Act: Call the method under test
+        ResponseEntity<?> res = teacherController.findAll(webRequest());
+
+        // Assert: Verify the list was not read
+        assertEquals(HttpStatus.NOT_MODIFIED, res.getStatusCode());
+        verify(teacherService, never()).findAll();
     }
 }
\ No newline at end of file
@@ -1,28 +1,49 @@
 package com.openclassrooms.starterjwt.unitaire.controllers;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import org.mockito.Mock;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextImpl;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import com.openclassrooms.starterjwt.controllers.SessionController;
 import com.openclassrooms.starterjwt.controllers.UserController;
+import com.openclassrooms.starterjwt.dto.SessionSummaryDto;
 import com.openclassrooms.starterjwt.dto.UserDto;
+import com.openclassrooms.starterjwt.mapper.SessionMapper;
 import com.openclassrooms.starterjwt.mapper.UserMapper;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionSummary;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import com.openclassrooms.starterjwt.services.SessionCursor;
+import com.openclassrooms.starterjwt.services.SessionPeriod;
+import com.openclassrooms.starterjwt.services.SessionService;
 import com.openclassrooms.starterjwt.services.UserService;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,8 +55,12 @@ public class UserControllerTest {
     @Mock
     private UserMapper userMapper;
 
-    // Create the instance with mocked dependencies
-    @InjectMocks
+    @Mock
+    private SessionService sessionService;
+
+    @Mock
+    private SessionMapper sessionMapper;
+
     private UserController userController;
 
     @Mock
@@ -55,7 +80,8 @@ public class UserControllerTest {
 
     @BeforeEach
     void setUp() {
-        // No specific setup required for these tests
+        // Create the instance with mocked dependencies and pages of 2 sessions by default
+        userController = new UserController(userService, userMapper, sessionService, sessionMapper, 2, 3);
     }
 
     @Test
@@ -187,4 +213,87 @@ public class UserControllerTest {
         // Verify interactions with the mock
         verify(userService).findById(mockId);
     }
-}
\ No newline at end of file
+
+    @Test
+    @Tag("GET")
+    @DisplayName("Test listing the sessions of the current user should return a page and its next cursor")
+    void testFindSessions() {
+        // Arrange: The user participates in more sessions than the page size
+        SessionSummary first = mock(SessionSummary.class);
+        SessionSummary second = mock(SessionSummary.class);
+        when(second.getId()).thenReturn(8L);
+        when(second.getDate()).thenReturn(new Date(1000L));
+        List<SessionSummaryDto> dtos = Collections.singletonList(new SessionSummaryDto());
+        when(sessionService.findUserPage(eq(4L), eq(SessionPeriod.UPCOMING), isNull(), eq(3), isNull(), isNull()))
+            .thenReturn(Arrays.asList(first, second, mock(SessionSummary.class)));
+        when(sessionMapper.toSummaryDto(Arrays.asList(first, second))).thenReturn(dtos);
+
+        try {
+            authenticate(4L, false);
+
+            // Act: Read the first page of upcoming sessions
+            ResponseEntity<?> res = userController.findSessions("4", "upcoming", null, null, null, null);
+
+            // Assert: A page of 2 with the cursor of its last session
+            assertEquals(HttpStatus.OK, res.getStatusCode());
+            assertEquals(dtos, res.getBody());
+            assertEquals(new SessionCursor(new Date(1000L), 8L).encode(), res.getHeaders().getFirst(SessionController.NEXT_CURSOR_HEADER));
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @Test
+    @Tag("GET")
+    @DisplayName("Test listing the sessions of another user should return UNAUTHORIZED")
+    void testFindSessionsOtherUser() {
+        try {
+            authenticate(5L, false);
+
+            // Act & Assert: The sessions are not read
+            assertEquals(HttpStatus.UNAUTHORIZED, userController.findSessions("4", null, null, null, null, null).getStatusCode());
+            verify(sessionService, never()).findUserPage(any(), any(), any(), anyInt(), any(), any());
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @Test
+    @Tag("GET")
+    @DisplayName("Test an admin should list the sessions of any user")
+    void testFindSessionsAdmin() {
+        // Arrange: The user has no session
+        when(sessionService.findUserPage(4L, null, null, 3, null, null)).thenReturn(Collections.emptyList());
+        when(sessionMapper.toSummaryDto(Collections.emptyList())).thenReturn(Collections.emptyList());
+
+        try {
+            authenticate(1L, true);
+
+            // Act: Read the sessions
+            ResponseEntity<?> res = userController.findSessions("4", null, null, null, null, null);
+
+            // Assert: A single empty page
+            assertEquals(HttpStatus.OK, res.getStatusCode());
+            assertNull(res.getHeaders().getFirst(SessionController.NEXT_CURSOR_HEADER));
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @Test
+    @Tag("GET")
+    @DisplayName("Test listing sessions with an invalid period, cursor or size should return BAD REQUEST")
+    void testFindSessionsNotValid() {
+        // Act & Assert: None of the requests reaches the service
+        assertEquals(HttpStatus.BAD_REQUEST, userController.findSessions("4", "tomorrow", null, null, null, null).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, userController.findSessions("4", null, "not a cursor", null, null, null).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, userController.findSessions("4", null, null, 0, null, null).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, userController.findSessions("invalid", null, null, null, null, null).getStatusCode());
+        verify(sessionService, never()).findUserPage(any(), any(), any(), anyInt(), any(), any());
+    }
+
+    private void authenticate(Long id, boolean admin) {
+        UserDetailsImpl principal = UserDetailsImpl.builder().id(id).username("user@test.com").admin(admin).build();
+        SecurityContextHolder.setContext(new SecurityContextImpl(new UsernamePasswordAuthenticationToken(principal, null)));
+    }
+}
@@ -0,0 +1,68 @@
+package com.openclassrooms.starterjwt.unitaire.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.starterjwt.metrics.DbTimeSessionEventListener;
+import com.openclassrooms.starterjwt.metrics.RequestDbUsage;
+
+public class DbTimeSessionEventListenerTest {
+
+    private final DbTimeSessionEventListener listener = new DbTimeSessionEventListener();
+
+    @AfterEach
+    void tearDown() {
+        RequestDbUsage.stop();
+    }
+
+    @Test
+    @Tag("Metrics")
+    @DisplayName("Test the statements of a request should add up to its database time")
+    void testStatementsAddUp() throws InterruptedException {
+        // Arrange: A request is being served
+        RequestDbUsage.start();
+
+        // Act: Prepare and execute a statement, then run a batch
+        listener.jdbcPrepareStatementStart();
+        listener.jdbcPrepareStatementEnd();
+        listener.jdbcExecuteStatementStart();
+        Thread.sleep(5);
+        listener.jdbcExecuteStatementEnd();
+        listener.jdbcExecuteBatchStart();
+        Thread.sleep(5);
+        listener.jdbcExecuteBatchEnd();
+
+        // Assert: Both waits are counted
+        assertTrue(RequestDbUsage.stop().getNanos() >= 10_000_000L);
+    }
+
+    @Test
+    @Tag("Metrics")
+    @DisplayName("Test statements outside of a request should not be recorded")
+    void testOutsideOfRequest() {
+        // Act: Execute a statement while no request is served
+        listener.jdbcExecuteStatementStart();
+        listener.jdbcExecuteStatementEnd();
+
+        // Assert: Nothing was recorded
+        assertEquals(0, RequestDbUsage.stop().getNanos());
+    }
+
+    @Test
+    @Tag("Metrics")
+    @DisplayName("Test an end without a start should be ignored")
+    void testEndWithoutStart() {
+        // Arrange: A request is being served
+        RequestDbUsage.start();
+
+        // Act: End a statement that was never started
+        listener.jdbcExecuteStatementEnd();
+
+        // Assert: Nothing was recorded
+        assertEquals(0, RequestDbUsage.stop().getNanos());
+    }
+}
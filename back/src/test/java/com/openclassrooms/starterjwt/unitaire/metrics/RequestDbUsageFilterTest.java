@@ -0,0 +1,72 @@
+package com.openclassrooms.starterjwt.unitaire.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.openclassrooms.starterjwt.metrics.RequestDbUsage;
+import com.openclassrooms.starterjwt.metrics.RequestDbUsageFilter;
+import com.openclassrooms.starterjwt.metrics.StatementCountingInspector;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class RequestDbUsageFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private RequestDbUsageFilter filter;
+
+    private MockHttpServletRequest request;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new RequestDbUsageFilter(meterRegistry, 2);
+        request = new MockHttpServletRequest("GET", "/api/session/1");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/session/{id}");
+    }
+
+    @Test
+    @Tag("Metrics")
+    @DisplayName("Test the statements of a request should be published and kept on the request")
+    void testRecordsUsage() throws Exception {
+        // Arrange: The request issues three statements
+        StatementCountingInspector inspector = new StatementCountingInspector();
+
+        // Act: Serve it
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            inspector.inspect("select * from SESSIONS where id=?");
+            inspector.inspect("select * from USERS where id=?");
+            inspector.inspect("select * from USERS where id=?");
+        });
+
+        // Assert: The count is on the request and in the summary of the route
+        RequestDbUsage usage = (RequestDbUsage) request.getAttribute(RequestDbUsageFilter.USAGE_ATTRIBUTE);
+        assertEquals(3, usage.getStatements());
+        assertEquals(3.0, meterRegistry.get("http.server.requests.db.statements").tag("uri", "/api/session/{id}").summary().totalAmount());
+        assertEquals(1, meterRegistry.get("http.server.requests.db").tag("method", "GET").timer().count());
+    }
+
+    @Test
+    @Tag("Metrics")
+    @DisplayName("Test the usage should be recorded when the request fails")
+    void testRecordsFailedRequest() throws Exception {
+        // Act: Serve a request that throws
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+                throw new IllegalStateException();
+            });
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+
+        // Assert: The request was still counted, and the usage was cleared from the thread
+        assertEquals(1, meterRegistry.get("http.server.requests.db.statements").summary().count());
+        assertEquals(0, RequestDbUsage.stop().getStatements());
+    }
+}
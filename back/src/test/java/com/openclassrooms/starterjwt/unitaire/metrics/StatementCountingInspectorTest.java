@@ -0,0 +1,54 @@
+package com.openclassrooms.starterjwt.unitaire.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.starterjwt.metrics.RequestDbUsage;
+import com.openclassrooms.starterjwt.metrics.StatementCountingInspector;
+
+public class StatementCountingInspectorTest {
+
+    private final StatementCountingInspector inspector = new StatementCountingInspector();
+
+    @AfterEach
+    void tearDown() {
+        RequestDbUsage.stop();
+    }
+
+    @Test
+    @Tag("Metrics")
+    @DisplayName("Test the statements of a request should be counted with the most repeated one")
+    void testCountsStatements() {
+        // Arrange: A request is being served
+        RequestDbUsage.start();
+
+        // Act: A list query followed by one lookup per row
+        assertEquals("select * from SESSIONS", inspector.inspect("select * from SESSIONS"));
+        for (int i = 0; i < 3; i++) {
+            inspector.inspect("select * from USERS where id=?");
+        }
+
+        // Assert: Four statements, three of them the same
+        RequestDbUsage usage = RequestDbUsage.stop();
+        assertEquals(4, usage.getStatements());
+        assertEquals("select * from USERS where id=?", usage.getMostRepeated().getKey());
+        assertEquals(3, usage.getMostRepeated().getValue());
+    }
+
+    @Test
+    @Tag("Metrics")
+    @DisplayName("Test statements outside of a request should not be counted")
+    void testOutsideOfRequest() {
+        // Act: Inspect a statement while no request is served
+        inspector.inspect("select * from SESSIONS");
+
+        // Assert: Nothing was counted
+        RequestDbUsage usage = RequestDbUsage.stop();
+        assertEquals(0, usage.getStatements());
+        assertNull(usage.getMostRepeated());
+    }
+}
@@ -0,0 +1,156 @@
+package com.openclassrooms.starterjwt.unitaire.repository.routing;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.openclassrooms.starterjwt.repository.routing.DataSourceRole;
+import com.openclassrooms.starterjwt.repository.routing.ReadYourWritesWindow;
+import com.openclassrooms.starterjwt.repository.routing.ReplicaRoutingDataSource;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+
+@ExtendWith(MockitoExtension.class)
+public class ReplicaRoutingDataSourceTest {
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private DataSource replica;
+
+    @Mock
+    private Connection primaryConnection;
+
+    @Mock
+    private Connection replicaConnection;
+
+    private ReadYourWritesWindow readYourWritesWindow;
+
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @BeforeEach
+    void setUp() {
+        readYourWritesWindow = new ReadYourWritesWindow(60000, 100);
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(DataSourceRole.PRIMARY, primary);
+        targets.put(DataSourceRole.REPLICA, replica);
+        routingDataSource = new ReplicaRoutingDataSource(readYourWritesWindow);
+        routingDataSource.setTargetDataSources(targets);
+        routingDataSource.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @Tag("Routing")
+    @DisplayName("Test a read-only transaction should read from the replica")
+    void testReadOnlyTransactionUsesReplica() throws SQLException {
+        // Arrange: A read-only transaction is running
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        inTransaction(true);
+
+        // Act & Assert: The connection comes from the replica
+        assertSame(replicaConnection, routingDataSource.getConnection());
+    }
+
+    @Test
+    @Tag("Routing")
+    @DisplayName("Test a read-write transaction should use the primary")
+    void testReadWriteTransactionUsesPrimary() throws SQLException {
+        // Arrange: A read-write transaction is running
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        inTransaction(false);
+
+        // Act & Assert: The connection comes from the primary
+        assertSame(primaryConnection, routingDataSource.getConnection());
+    }
+
+    @Test
+    @Tag("Routing")
+    @DisplayName("Test a connection taken outside of a transaction should come from the primary")
+    void testNoTransactionUsesPrimary() throws SQLException {
+        // Arrange: No transaction is running
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        // Act & Assert: The connection comes from the primary
+        assertSame(primaryConnection, routingDataSource.getConnection());
+    }
+
+    @Test
+    @Tag("Routing")
+    @DisplayName("Test a user who just wrote should read from the primary")
+    void testPinnedUserReadsPrimary() throws SQLException {
+        // Arrange: The authenticated user has just participated
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        authenticate(7L);
+        readYourWritesWindow.pinCurrentUser();
+        inTransaction(true);
+
+        // Act & Assert: The read-only transaction uses the primary
+        assertSame(primaryConnection, routingDataSource.getConnection());
+    }
+
+    @Test
+    @Tag("Routing")
+    @DisplayName("Test the pin of a user should not send the reads of others to the primary")
+    void testOtherUserReadsReplica() throws SQLException {
+        // Arrange: Another user has just participated
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        authenticate(7L);
+        readYourWritesWindow.pin(8L);
+        inTransaction(true);
+
+        // Act & Assert: The read-only transaction uses the replica
+        assertSame(replicaConnection, routingDataSource.getConnection());
+        assertFalse(readYourWritesWindow.isCurrentUserPinned());
+    }
+
+    @Test
+    @Tag("Routing")
+    @DisplayName("Test a pin should end with its window")
+    void testPinExpires() throws InterruptedException {
+        // Arrange: A window of 10 ms
+        ReadYourWritesWindow window = new ReadYourWritesWindow(10, 100);
+        window.pin(7L);
+
+        // Act: Let it pass
+        Thread.sleep(50);
+
+        // Assert: The user is no longer pinned
+        assertFalse(window.isPinned(7L));
+    }
+
+    private static void inTransaction(boolean readOnly) {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+    }
+
+    private static void authenticate(Long userId) {
+        UserDetailsImpl userDetails = UserDetailsImpl.builder().id(userId).username("user" + userId + "@test.com").build();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities()));
+    }
+}
@@ -24,6 +24,8 @@ import org.springframework.security.core.AuthenticationException;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.openclassrooms.starterjwt.security.jwt.AuthEntryPointJwt;
+import com.openclassrooms.starterjwt.security.jwt.AuthFailureLog;
+import com.openclassrooms.starterjwt.security.jwt.AuthFailureReason;
 
 @ExtendWith(MockitoExtension.class)
 public class AuthEntryPointJwtTest {
@@ -37,6 +39,9 @@ public class AuthEntryPointJwtTest {
     @Mock
     private AuthenticationException authException;
 
+    @Mock
+    private AuthFailureLog authFailureLog;
+
     @InjectMocks
     private AuthEntryPointJwt authEntryPointJwt;
 
@@ -82,5 +87,41 @@ public class AuthEntryPointJwtTest {
         assertEquals("Unauthorized", responseBody.get("error"));
         assertEquals("Unauthorized error", responseBody.get("message"));
         assertEquals("/test-path", responseBody.get("path"));
+        verify(authFailureLog).record(AuthFailureReason.UNAUTHORIZED, "Unauthorized error");
+    }
+
+    @Test
+    @Tag("Security")
+    @DisplayName("Test commence method should escape the message and path in the JSON body")
+    void testCommenceEscaped() throws IOException, ServletException {
+        // Arrange: The message and path contain characters to escape
+        when(authException.getMessage()).thenReturn("Bad \"token\"");
+        when(request.getServletPath()).thenReturn("/api/\u00e9\n");
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                byteArrayOutputStream.write(b);
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                // No implementation needed for this test
+            }
+        });
+
+        // Act: Call the method under test
+        authEntryPointJwt.commence(request, response, authException);
+
+        // Assert: The body is valid JSON and its length was announced
+        Map<String, Object> responseBody = new ObjectMapper().readValue(byteArrayOutputStream.toByteArray(), Map.class);
+        assertEquals("Bad \"token\"", responseBody.get("message"));
+        assertEquals("/api/\u00e9\n", responseBody.get("path"));
+        verify(response).setContentLength(byteArrayOutputStream.size());
     }
 }
\ No newline at end of file
@@ -0,0 +1,55 @@
+package com.openclassrooms.starterjwt.unitaire.security.jwt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.starterjwt.security.jwt.AuthFailureLog;
+import com.openclassrooms.starterjwt.security.jwt.AuthFailureReason;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class AuthFailureLogTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private AuthFailureLog authFailureLog;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        authFailureLog = new AuthFailureLog(meterRegistry);
+    }
+
+    @Test
+    @Tag("Security")
+    @DisplayName("Test failures should be counted per reason")
+    void testRecord() {
+        // Act: Record two expired tokens and one bad signature
+        authFailureLog.record(AuthFailureReason.EXPIRED_TOKEN, "expired");
+        authFailureLog.record(AuthFailureReason.EXPIRED_TOKEN, "expired");
+        authFailureLog.record(AuthFailureReason.INVALID_SIGNATURE, "signature");
+
+        // Assert: Each reason has its own counter
+        assertEquals(2.0, meterRegistry.get("auth.failures").tag("reason", "expired_token").counter().count());
+        assertEquals(1.0, meterRegistry.get("auth.failures").tag("reason", "invalid_signature").counter().count());
+        assertEquals(0.0, meterRegistry.get("auth.failures").tag("reason", "unauthorized").counter().count());
+    }
+
+    @Test
+    @Tag("Security")
+    @DisplayName("Test reporting the interval should keep the cumulative counters")
+    void testFlush() {
+        // Arrange: Record a failure
+        authFailureLog.record(AuthFailureReason.UNAUTHORIZED, "Full authentication is required");
+
+        // Act: Report the interval twice
+        authFailureLog.flush();
+        authFailureLog.flush();
+
+        // Assert: The exported counter is not reset by the report
+        assertEquals(1.0, meterRegistry.get("auth.failures").tag("reason", "unauthorized").counter().count());
+    }
+}
@@ -9,10 +9,13 @@ import javax.servlet.http.HttpServletResponse;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.anyString;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import static org.mockito.Mockito.never;
@@ -22,20 +25,33 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
+import com.openclassrooms.starterjwt.security.jwt.AuthFailureLog;
+import com.openclassrooms.starterjwt.security.jwt.AuthFailureReason;
 import com.openclassrooms.starterjwt.security.jwt.AuthTokenFilter;
+import com.openclassrooms.starterjwt.security.jwt.JwtClaimsCache;
 import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
 import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
 
+import io.jsonwebtoken.Claims;
+
 @ExtendWith(MockitoExtension.class)
 public class AuthTokenFilterTest {
 
     @InjectMocks
     private AuthTokenFilter authTokenFilter;
 
+    @Mock
+    private JwtClaimsCache jwtClaimsCache;
+
     @Mock
     private JwtUtils jwtUtils;
 
+    @Mock
+    private Claims claims;
+
     @Mock
     private HttpServletRequest request;
 
@@ -51,6 +67,15 @@ public class AuthTokenFilterTest {
     @Mock
     private UserDetailsServiceImpl userDetailsService;
 
+    @Mock
+    private AuthFailureLog authFailureLog;
+
+    @BeforeEach
+    void setUp() {
+        // Start every test from an empty security context
+        SecurityContextHolder.clearContext();
+    }
+
     @Test
     @Tag("Security")
     @DisplayName("Test JWT filter with valid token should authenticate the user")
@@ -61,10 +86,10 @@ public class AuthTokenFilterTest {
         
         // Mock the header with the JWT
         when(request.getHeader("Authorization")).thenReturn("Bearer " + mockJwt);
-        // Mock the JWT validation to return true
-        when(jwtUtils.validateJwtToken(mockJwt)).thenReturn(true);
-        // Mock the extraction of the username from the JWT
-        when(jwtUtils.getUserNameFromJwtToken(mockJwt)).thenReturn(mockUsername);
+        // Mock the JWT verification to return the token claims
+        when(jwtClaimsCache.getVerifiedClaims(mockJwt)).thenReturn(claims);
+        // Mock the extraction of the username from the claims
+        when(claims.getSubject()).thenReturn(mockUsername);
         // Mock loading the user details by username
         when(userDetailsService.loadUserByUsername(mockUsername)).thenReturn(userDetails);
 
@@ -72,8 +97,7 @@ public class AuthTokenFilterTest {
         authTokenFilter.doFilterInternal(request, response, filterChain);
 
         // Assert: Verify the interactions
-        verify(jwtUtils).validateJwtToken(mockJwt);
-        verify(jwtUtils).getUserNameFromJwtToken(mockJwt);
+        verify(jwtClaimsCache).getVerifiedClaims(mockJwt);
         verify(userDetailsService).loadUserByUsername(mockUsername);
         verify(filterChain).doFilter(request, response);
 
@@ -85,6 +109,25 @@ public class AuthTokenFilterTest {
         assertEquals(userDetails, authentication.getPrincipal());
     }
 
+    @Test
+    @Tag("Security")
+    @DisplayName("Test JWT filter with a token carrying the principal claims should not load the user")
+    void testDoFilterInternal_StatelessPrincipal() throws ServletException, IOException {
+        // Arrange: The principal is built from the token claims
+        UserDetailsImpl principal = UserDetailsImpl.builder().id(1L).username("username").admin(true).build();
+        when(request.getHeader("Authorization")).thenReturn("Bearer token");
+        when(jwtClaimsCache.getVerifiedClaims("token")).thenReturn(claims);
+        when(jwtUtils.getUserDetailsFromClaims(claims)).thenReturn(principal);
+
+        // Act: Execute the filter
+        authTokenFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert: The user is authenticated without any lookup
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+        verify(filterChain).doFilter(request, response);
+        assertEquals(principal, SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+    }
+
     @Test
     @Tag("Security")
     @DisplayName("Test JWT filter with invalid token should not authenticate the user")
@@ -97,13 +140,51 @@ public class AuthTokenFilterTest {
         // Mock the header with the invalid JWT
         when(request.getHeader("Authorization")).thenReturn(headerAuth);
         // Simulate an exception during JWT validation
-        when(jwtUtils.validateJwtToken(mockJwt)).thenThrow(new RuntimeException("Cannot set user authentication"));
+        when(jwtClaimsCache.getVerifiedClaims(mockJwt)).thenThrow(new RuntimeException("Cannot set user authentication"));
 
         // Act: Execute the filter
         authTokenFilter.doFilterInternal(request, response, filterChain);
 
         // Assert: Verify that the filter chain was NOT called since an exception occurred
         verify(userDetailsService, never()).loadUserByUsername(mockUsername);
+        verify(authFailureLog).record(AuthFailureReason.PRINCIPAL_ERROR, "java.lang.RuntimeException: Cannot set user authentication");
+    }
+
+    @Test
+    @Tag("Security")
+    @DisplayName("Test JWT filter with a token of a deleted user should record the failure and not authenticate")
+    void testDoFilterInternal_UnknownUser() throws ServletException, IOException {
+        // Arrange: The token is valid but its user no longer exists
+        when(request.getHeader("Authorization")).thenReturn("Bearer validJwt");
+        when(jwtClaimsCache.getVerifiedClaims("validJwt")).thenReturn(claims);
+        when(claims.getSubject()).thenReturn("deleted@test.com");
+        when(userDetailsService.loadUserByUsername("deleted@test.com"))
+            .thenThrow(new UsernameNotFoundException("User Not Found with email: deleted@test.com"));
+
+        // Act: Execute the filter
+        authTokenFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert: The failure is recorded and the request goes on unauthenticated
+        verify(authFailureLog).record(AuthFailureReason.UNKNOWN_USER, "User Not Found with email: deleted@test.com");
+        verify(filterChain).doFilter(request, response);
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    @Tag("Security")
+    @DisplayName("Test JWT filter with a token that fails verification should not authenticate the user")
+    void testDoFilterInternal_UnverifiedToken() throws ServletException, IOException {
+        // Arrange: The token does not pass verification
+        when(request.getHeader("Authorization")).thenReturn("Bearer invalidJwt");
+        when(jwtClaimsCache.getVerifiedClaims("invalidJwt")).thenReturn(null);
+
+        // Act: Execute the filter
+        authTokenFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert: No user is loaded and the request goes on unauthenticated
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+        verify(filterChain).doFilter(request, response);
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
     }
 
     @Test
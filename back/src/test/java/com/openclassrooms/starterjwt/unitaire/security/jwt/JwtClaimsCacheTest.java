@@ -0,0 +1,89 @@
+package com.openclassrooms.starterjwt.unitaire.security.jwt;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.openclassrooms.starterjwt.security.jwt.JwtClaimsCache;
+import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
+
+import io.jsonwebtoken.Claims;
+
+@ExtendWith(MockitoExtension.class)
+public class JwtClaimsCacheTest {
+
+    @Mock
+    private JwtUtils jwtUtils;
+
+    @Mock
+    private Claims claims;
+
+    private JwtClaimsCache jwtClaimsCache;
+
+    @BeforeEach
+    void setUp() {
+        jwtClaimsCache = new JwtClaimsCache(jwtUtils, 100);
+    }
+
+    @Test
+    @Tag("Security")
+    @DisplayName("Test a valid token should be verified only once")
+    void testGetVerifiedClaimsCached() {
+        // Arrange: The token is valid for one more hour
+        when(jwtUtils.getClaimsFromJwtToken("token")).thenReturn(claims);
+        when(claims.getExpiration()).thenReturn(new Date(System.currentTimeMillis() + 3600000));
+
+        // Act: Resolve the same token twice
+        Claims first = jwtClaimsCache.getVerifiedClaims("token");
+        Claims second = jwtClaimsCache.getVerifiedClaims("token");
+
+        // Assert: Both calls return the claims but the signature was verified once
+        assertEquals(claims, first);
+        assertEquals(claims, second);
+        verify(jwtUtils, times(1)).getClaimsFromJwtToken("token");
+    }
+
+    @Test
+    @Tag("Security")
+    @DisplayName("Test an invalid token should not be cached")
+    void testGetVerifiedClaimsInvalid() {
+        // Arrange: The token does not pass verification
+        when(jwtUtils.getClaimsFromJwtToken("invalid")).thenReturn(null);
+
+        // Act: Resolve the token twice
+        Claims first = jwtClaimsCache.getVerifiedClaims("invalid");
+        Claims second = jwtClaimsCache.getVerifiedClaims("invalid");
+
+        // Assert: Every call goes through verification
+        assertNull(first);
+        assertNull(second);
+        verify(jwtUtils, times(2)).getClaimsFromJwtToken("invalid");
+    }
+
+    @Test
+    @Tag("Security")
+    @DisplayName("Test a token whose expiration has passed should be verified again")
+    void testGetVerifiedClaimsExpired() {
+        // Arrange: The claims carry an expiration already in the past
+        when(jwtUtils.getClaimsFromJwtToken("token")).thenReturn(claims);
+        when(claims.getExpiration()).thenReturn(new Date(System.currentTimeMillis() - 1000));
+
+        // Act: Resolve the token twice
+        jwtClaimsCache.getVerifiedClaims("token");
+        jwtClaimsCache.getVerifiedClaims("token");
+
+        // Assert: The entry never outlives the token
+        verify(jwtUtils, times(2)).getClaimsFromJwtToken("token");
+    }
+}
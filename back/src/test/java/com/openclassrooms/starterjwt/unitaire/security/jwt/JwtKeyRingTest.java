@@ -0,0 +1,161 @@
+package com.openclassrooms.starterjwt.unitaire.security.jwt;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Base64;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.starterjwt.security.jwt.JwtKeyRing;
+import com.openclassrooms.starterjwt.security.jwt.JwtKeyRingProperties;
+import com.openclassrooms.starterjwt.security.jwt.JwtSigningKey;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SignatureException;
+
+public class JwtKeyRingTest {
+
+    private String jwtSecret = "16541515qs4dqsdq";
+
+    private JwtKeyRingProperties.Key ecKey(String id, KeyPair keyPair, boolean withPrivateKey) {
+        JwtKeyRingProperties.Key key = new JwtKeyRingProperties.Key();
+        key.setId(id);
+        key.setAlgorithm("ES256");
+        key.setPublicKey(Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()));
+        if (withPrivateKey) {
+            key.setPrivateKey(Base64.getEncoder().encodeToString(keyPair.getPrivate().getEncoded()));
+        }
+        return key;
+    }
+
+    private KeyPair generateEcKeyPair() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(256);
+        return generator.generateKeyPair();
+    }
+
+    @Test
+    @Tag("Security")
+    @DisplayName("Test tokens without kid should be verified with the legacy secret")
+    void testLegacyToken() {
+        // Arrange: A ring with only the legacy secret and a token signed the historical way
+        JwtKeyRing keyRing = new JwtKeyRing(jwtSecret, new JwtKeyRingProperties());
+        String token = Jwts.builder().setSubject("username").signWith(SignatureAlgorithm.HS512, jwtSecret).compact();
+
+        // Act & Assert: The token is verified and the legacy key signs new tokens
+        assertEquals("username", keyRing.parseClaimsJws(token).getBody().getSubject());
+        assertEquals(JwtKeyRing.LEGACY_KEY_ID, keyRing.getActiveKey().getId());
+    }
+
+    @Test
+    @Tag("Security")
+    @DisplayName("Test a staged rollover should keep verifying tokens of the previous key")
+    void testRollover() throws Exception {
+        // Arrange: Tokens signed while the legacy secret was active
+        String oldToken = Jwts.builder().setSubject("old").signWith(SignatureAlgorithm.HS512, jwtSecret).compact();
+
+        // Activate an ES256 key
+        JwtKeyRingProperties properties = new JwtKeyRingProperties();
+        properties.getKeys().add(ecKey("2026-10", generateEcKeyPair(), true));
+        properties.setActiveKeyId("2026-10");
+        JwtKeyRing keyRing = new JwtKeyRing(jwtSecret, properties);
+
+        JwtSigningKey activeKey = keyRing.getActiveKey();
+        String newToken = Jwts.builder()
+            .setHeaderParam(JwsHeader.KEY_ID, activeKey.getId())
+            .setSubject("new")
+            .signWith(activeKey.getAlgorithm(), activeKey.getSigningKey())
+            .compact();
+
+        // Act & Assert: Both generations of tokens are verified
+        assertEquals("old", keyRing.parseClaimsJws(oldToken).getBody().getSubject());
+        assertEquals("new", keyRing.parseClaimsJws(newToken).getBody().getSubject());
+    }
+
+    @Test
+    @Tag("Security")
+    @DisplayName("Test a node holding only the public key should verify but not sign")
+    void testVerifyOnlyKey() throws Exception {
+        // Arrange: The signing node and a verifying node sharing only the public key
+        KeyPair keyPair = generateEcKeyPair();
+        JwtSigningKey signingKey = JwtSigningKey.fromProperties(ecKey("es", keyPair, true));
+        JwtKeyRing verifyingRing = new JwtKeyRing(
+            Arrays.asList(
+                JwtSigningKey.hmac(JwtKeyRing.LEGACY_KEY_ID, SignatureAlgorithm.HS512, jwtSecret),
+                JwtSigningKey.fromProperties(ecKey("es", keyPair, false))),
+            JwtKeyRing.LEGACY_KEY_ID,
+            false);
+
+        String token = Jwts.builder()
+            .setHeaderParam(JwsHeader.KEY_ID, "es")
+            .setSubject("username")
+            .signWith(signingKey.getAlgorithm(), signingKey.getSigningKey())
+            .compact();
+
+        // Act & Assert: The token is verified, and the key cannot become the active one
+        assertEquals("username", verifyingRing.parseClaimsJws(token).getBody().getSubject());
+        JwtKeyRingProperties properties = new JwtKeyRingProperties();
+        properties.getKeys().add(ecKey("es", keyPair, false));
+        properties.setActiveKeyId("es");
+        assertThrows(IllegalArgumentException.class, () -> new JwtKeyRing(jwtSecret, properties));
+    }
+
+    @Test
+    @Tag("Security")
+    @DisplayName("Test tokens naming an unknown key or another algorithm should be rejected")
+    void testRejectedTokens() {
+        // Arrange: A ring whose only named key is an HS256 key
+        JwtKeyRingProperties.Key hs256 = new JwtKeyRingProperties.Key();
+        hs256.setId("hs");
+        hs256.setAlgorithm("HS256");
+        hs256.setSecret(jwtSecret);
+        JwtKeyRingProperties properties = new JwtKeyRingProperties();
+        properties.getKeys().add(hs256);
+        JwtKeyRing keyRing = new JwtKeyRing(jwtSecret, properties);
+
+        String unknownKid = Jwts.builder()
+            .setHeaderParam(JwsHeader.KEY_ID, "unknown")
+            .setSubject("username")
+            .signWith(SignatureAlgorithm.HS256, jwtSecret)
+            .compact();
+        String otherAlgorithm = Jwts.builder()
+            .setHeaderParam(JwsHeader.KEY_ID, "hs")
+            .setSubject("username")
+            .signWith(SignatureAlgorithm.HS512, jwtSecret)
+            .compact();
+
+        // Act & Assert: Both tokens fail signature verification
+        assertThrows(SignatureException.class, () -> keyRing.parseClaimsJws(unknownKid));
+        assertThrows(SignatureException.class, () -> keyRing.parseClaimsJws(otherAlgorithm));
+    }
+
+    @Test
+    @Tag("Security")
+    @DisplayName("Test tokens without kid should be rejected once the rotation is complete")
+    void testRejectTokensWithoutKid() throws Exception {
+        // Arrange: A ring signing with an ES256 key, the legacy secret removed
+        JwtKeyRingProperties properties = new JwtKeyRingProperties();
+        properties.getKeys().add(ecKey("2026-10", generateEcKeyPair(), true));
+        properties.setActiveKeyId("2026-10");
+        properties.setRejectTokensWithoutKid(true);
+        JwtKeyRing keyRing = new JwtKeyRing("", properties);
+
+        String withoutKid = Jwts.builder().setSubject("username").signWith(SignatureAlgorithm.HS512, jwtSecret).compact();
+        String legacyKid = Jwts.builder()
+            .setHeaderParam(JwsHeader.KEY_ID, JwtKeyRing.LEGACY_KEY_ID)
+            .setSubject("username")
+            .signWith(SignatureAlgorithm.HS512, jwtSecret)
+            .compact();
+
+        // Act & Assert: Neither the unnamed token nor the removed legacy key are accepted
+        assertThrows(SignatureException.class, () -> keyRing.parseClaimsJws(withoutKid));
+        assertThrows(SignatureException.class, () -> keyRing.parseClaimsJws(legacyKid));
+    }
+}
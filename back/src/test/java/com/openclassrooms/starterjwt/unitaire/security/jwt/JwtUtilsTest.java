@@ -3,14 +3,16 @@ package com.openclassrooms.starterjwt.unitaire.security.jwt;
 import java.util.Date;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import static org.mockito.Mockito.verify;
@@ -19,6 +21,10 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.Authentication;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import com.openclassrooms.starterjwt.security.jwt.AuthFailureLog;
+import com.openclassrooms.starterjwt.security.jwt.AuthFailureReason;
+import com.openclassrooms.starterjwt.security.jwt.JwtKeyRing;
+import com.openclassrooms.starterjwt.security.jwt.JwtKeyRingProperties;
 import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
 import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
 
@@ -34,6 +40,9 @@ public class JwtUtilsTest {
     @Mock
     private Authentication authentication;
 
+    @Mock
+    private AuthFailureLog authFailureLog;
+
     @InjectMocks
     private JwtUtils jwtUtils;
 
@@ -42,8 +51,8 @@ public class JwtUtilsTest {
 
     @BeforeEach
     void setUp() {
-        // Inject the secret and expiration values into the JwtUtils instance
-        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", jwtSecret);
+        // Inject the key ring built from the secret and the expiration value into the JwtUtils instance
+        ReflectionTestUtils.setField(jwtUtils, "jwtKeyRing", new JwtKeyRing(jwtSecret, new JwtKeyRingProperties()));
         ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", jwtExpirationMs);
     }
 
@@ -76,67 +85,89 @@ public class JwtUtilsTest {
 
     @Test
     @Tag("Security")
-    @DisplayName("Test extracting username from JWT token should return the correct username")
-    void testGetUserNameFromJwtToken() {
-        // Arrange: Set up mock responses
-        String mockUsername = "username";
-        when(authentication.getPrincipal()).thenReturn(userDetailsImpl);
-        when(userDetailsImpl.getUsername()).thenReturn(mockUsername);
-
-        // Act: Generate the JWT token and extract the username
-        String resToken = jwtUtils.generateJwtToken(authentication);
-        String res = jwtUtils.getUserNameFromJwtToken(resToken);
+    @DisplayName("Test the stateless principal mode should build the principal from the token claims")
+    void testGetUserDetailsFromClaimsStateless() {
+        // Arrange: Enable the stateless principal mode and issue a token
+        ReflectionTestUtils.setField(jwtUtils, "statelessPrincipal", true);
+        UserDetailsImpl principal = UserDetailsImpl.builder()
+            .id(61L)
+            .username("username")
+            .firstName("firstname")
+            .lastName("lastname")
+            .admin(true)
+            .build();
+        when(authentication.getPrincipal()).thenReturn(principal);
+        String token = jwtUtils.generateJwtToken(authentication);
+
+        // Act: Build the principal from the verified claims
+        UserDetailsImpl res = jwtUtils.getUserDetailsFromClaims(jwtUtils.getClaimsFromJwtToken(token));
+
+        // Assert: Verify every field was carried by the token
+        assertEquals(61L, res.getId());
+        assertEquals("username", res.getUsername());
+        assertEquals("firstname", res.getFirstName());
+        assertEquals("lastname", res.getLastName());
+        assertTrue(res.getAdmin());
+    }
 
-        // Assert: Verify the extracted username
-        assertEquals(mockUsername, res);
+    @Test
+    @Tag("Security")
+    @DisplayName("Test the principal should be loaded from the database when the stateless mode is disabled")
+    void testGetUserDetailsFromClaimsDisabled() {
+        // Arrange: Issue a token with the default mode
+        when(authentication.getPrincipal()).thenReturn(userDetailsImpl);
+        when(userDetailsImpl.getUsername()).thenReturn("username");
+        String token = jwtUtils.generateJwtToken(authentication);
 
-        verify(authentication).getPrincipal();
-        verify(userDetailsImpl).getUsername();
+        // Act & Assert: No principal can be built from the claims
+        assertNull(jwtUtils.getUserDetailsFromClaims(jwtUtils.getClaimsFromJwtToken(token)));
     }
 
     @Test
     @Tag("Security")
-    @DisplayName("Test validating a valid JWT token should return true")
-    void testValidateJwtToken() {
+    @DisplayName("Test verifying a valid JWT token should return its claims")
+    void testGetClaimsFromJwtToken() {
         // Arrange: Create a valid JWT token
         String validToken = Jwts.builder()
             .setSubject("username")
             .signWith(SignatureAlgorithm.HS512, jwtSecret)
             .compact();
 
-        // Act & Assert: Validate the token and verify it is valid
-        assertTrue(jwtUtils.validateJwtToken(validToken));
+        // Act & Assert: Verify the token and read its subject
+        assertEquals("username", jwtUtils.getClaimsFromJwtToken(validToken).getSubject());
     }
 
     @Test
     @Tag("Security")
-    @DisplayName("Test validating a JWT token with an incorrect signature should return false")
-    void testValidateJwtTokenErrorSignature() {
+    @DisplayName("Test verifying a JWT token with an incorrect signature should return no claims")
+    void testGetClaimsFromJwtTokenErrorSignature() {
         // Arrange: Use an incorrect secret to simulate a signature error
         String notValidToken = Jwts.builder()
             .setSubject("username")
             .signWith(SignatureAlgorithm.HS512, "incorrectSecret")
             .compact();
     
-        // Act & Assert: Validate the token and verify it is not valid
-        assertFalse(jwtUtils.validateJwtToken(notValidToken));
+        // Act & Assert: Verify the token and check it is rejected
+        assertNull(jwtUtils.getClaimsFromJwtToken(notValidToken));
+        verify(authFailureLog).record(eq(AuthFailureReason.INVALID_SIGNATURE), anyString());
     }
 
     @Test
     @Tag("Security")
-    @DisplayName("Test validating a malformed JWT token should return false")
-    void testValidateJwtTokenErrorMalformed() {
+    @DisplayName("Test verifying a malformed JWT token should return no claims")
+    void testGetClaimsFromJwtTokenErrorMalformed() {
         // Arrange: Create a malformed JWT token
         String notValid = "this.is.a.fake.jwt.token";
     
-        // Act & Assert: Validate the token and verify it is not valid
-        assertFalse(jwtUtils.validateJwtToken(notValid));
+        // Act & Assert: Verify the token and check it is rejected
+        assertNull(jwtUtils.getClaimsFromJwtToken(notValid));
+        verify(authFailureLog).record(eq(AuthFailureReason.MALFORMED_TOKEN), anyString());
     }
 
     @Test
     @Tag("Security")
-    @DisplayName("Test validating an expired JWT token should return false")
-    void testValidateJwtTokenErrorExpired() {
+    @DisplayName("Test verifying an expired JWT token should return no claims")
+    void testGetClaimsFromJwtTokenErrorExpired() {
         // Arrange: Create an expired JWT token
         String expiredToken = Jwts.builder()
             .setSubject("username")
@@ -144,15 +175,17 @@ public class JwtUtilsTest {
             .signWith(SignatureAlgorithm.HS512, jwtSecret)
             .compact();
 
-        // Act & Assert: Validate the token and verify it is not valid
-        assertFalse(jwtUtils.validateJwtToken(expiredToken));
+        // Act & Assert: Verify the token and check it is rejected
+        assertNull(jwtUtils.getClaimsFromJwtToken(expiredToken));
+        verify(authFailureLog).record(eq(AuthFailureReason.EXPIRED_TOKEN), anyString());
     }
 
     @Test
     @Tag("Security")
-    @DisplayName("Test validating an empty JWT token should return false")
-    void testValidateJwtTokenErrorEmpty() {
-        // Act & Assert: Validate an empty token and verify it is not valid
-        assertFalse(jwtUtils.validateJwtToken(""));
+    @DisplayName("Test verifying an empty JWT token should return no claims")
+    void testGetClaimsFromJwtTokenErrorEmpty() {
+        // Act & Assert: Verify an empty token and check it is rejected
+        assertNull(jwtUtils.getClaimsFromJwtToken(""));
+        verify(authFailureLog).record(eq(AuthFailureReason.EMPTY_TOKEN), anyString());
     }
 }
\ No newline at end of file
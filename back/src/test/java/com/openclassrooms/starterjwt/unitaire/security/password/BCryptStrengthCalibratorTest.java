@@ -0,0 +1,51 @@
+package com.openclassrooms.starterjwt.unitaire.security.password;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import com.openclassrooms.starterjwt.security.password.BCryptStrengthCalibrator;
+import com.openclassrooms.starterjwt.security.password.UpgradingBCryptPasswordEncoder;
+
+public class BCryptStrengthCalibratorTest {
+
+    @Test
+    @Tag("Security")
+    @DisplayName("Test an unreachable latency target should keep the minimum strength")
+    void testCalibrateMinimum() {
+        // Arrange: A target no hash can meet
+        BCryptStrengthCalibrator calibrator = new BCryptStrengthCalibrator(0, 4, 8);
+
+        // Act & Assert: The strength never goes below the minimum
+        assertEquals(4, calibrator.calibrate());
+    }
+
+    @Test
+    @Tag("Security")
+    @DisplayName("Test a generous latency target should be capped by the maximum strength")
+    void testCalibrateMaximum() {
+        // Arrange: A target any hash meets
+        BCryptStrengthCalibrator calibrator = new BCryptStrengthCalibrator(60000, 4, 6);
+
+        // Act & Assert: The strength never goes above the maximum
+        assertEquals(6, calibrator.calibrate());
+    }
+
+    @Test
+    @Tag("Security")
+    @DisplayName("Test only hashes stored with a lower cost should be re-encoded")
+    void testUpgradeEncoding() {
+        // Arrange: An encoder calibrated to strength 5
+        UpgradingBCryptPasswordEncoder encoder = new UpgradingBCryptPasswordEncoder(5);
+
+        // Act & Assert: Lower costs are upgraded, the current and higher costs are kept
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("password")));
+        assertFalse(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("password")));
+        assertFalse(encoder.upgradeEncoding(encoder.encode("password")));
+        assertFalse(encoder.upgradeEncoding(null));
+    }
+}
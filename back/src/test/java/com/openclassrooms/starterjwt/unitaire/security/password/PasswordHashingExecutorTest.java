@@ -0,0 +1,94 @@
+package com.openclassrooms.starterjwt.unitaire.security.password;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import com.openclassrooms.starterjwt.exception.PasswordHashingRejectedException;
+import com.openclassrooms.starterjwt.security.password.BoundedPasswordEncoder;
+import com.openclassrooms.starterjwt.security.password.PasswordHashingExecutor;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class PasswordHashingExecutorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private PasswordHashingExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // One thread and one queued hash at most
+        executor = new PasswordHashingExecutor(1, 1, 2, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    @Tag("Security")
+    @DisplayName("Test the encoder should hash on the pool and record the hash latency")
+    void testEncodeOnPool() {
+        // Arrange: A BCrypt encoder bound to the pool
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), executor);
+
+        // Act: Encode then verify a password
+        String encoded = encoder.encode("password");
+
+        // Assert: The hash is valid and both operations were timed
+        assertTrue(encoder.matches("password", encoded));
+        assertEquals(1, meterRegistry.get("password.hashing").tag("operation", "encode").timer().count());
+        assertEquals(1, meterRegistry.get("password.hashing").tag("operation", "matches").timer().count());
+    }
+
+    @Test
+    @Tag("Security")
+    @DisplayName("Test hashes beyond the pool and queue capacity should be rejected at once")
+    void testRejectWhenSaturated() throws Exception {
+        // Arrange: Occupy the only thread and the only queue slot
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> executor.execute("encode", () -> {
+            started.countDown();
+            await(release);
+            return "running";
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> executor.execute("encode", () -> "queued"));
+        while (meterRegistry.get("executor.queued").tag("name", "passwordHashing").gauge().value() < 1) {
+            Thread.sleep(5);
+        }
+
+        // Act & Assert: The next hash is rejected with the retry delay
+        PasswordHashingRejectedException exception = assertThrows(PasswordHashingRejectedException.class,
+            () -> executor.execute("encode", () -> "rejected"));
+        assertEquals(2, exception.getRetryAfterSeconds());
+        assertEquals(1, meterRegistry.get("password.hashing.rejected").counter().count());
+
+        // The admitted hashes still complete
+        release.countDown();
+        assertEquals("running", running.get(5, TimeUnit.SECONDS));
+        assertEquals("queued", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
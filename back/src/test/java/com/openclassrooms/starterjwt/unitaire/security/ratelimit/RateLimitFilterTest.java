@@ -0,0 +1,118 @@
+package com.openclassrooms.starterjwt.unitaire.security.ratelimit;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.openclassrooms.starterjwt.security.ratelimit.RateLimitFilter;
+import com.openclassrooms.starterjwt.security.ratelimit.RateLimitProperties;
+import com.openclassrooms.starterjwt.security.ratelimit.RateLimiter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class RateLimitFilterTest {
+
+    @InjectMocks
+    private RateLimitFilter rateLimitFilter;
+
+    @Mock
+    private FilterChain filterChain;
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        // One request per user and per minute on the participation route
+        RateLimitProperties.Rule rule = new RateLimitProperties.Rule();
+        rule.setName("participate");
+        rule.setMethod("POST");
+        rule.setPattern("/api/session/{id}/participate/{userId}");
+        rule.setKey(RateLimitProperties.KeyType.PATH_VARIABLE);
+        rule.setVariable("userId");
+        rule.setCapacity(1);
+        rule.setRefillPeriodMs(60000);
+
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setRules(Collections.singletonList(rule));
+        ReflectionTestUtils.setField(rateLimitFilter, "properties", properties);
+        ReflectionTestUtils.setField(rateLimitFilter, "rateLimiter", new RateLimiter(properties));
+    }
+
+    @Test
+    @Tag("Security")
+    @DisplayName("Test a request over the limit should be rejected with 429 and Retry-After")
+    void testDoFilterInternalOverLimit() throws ServletException, IOException {
+        // Arrange: The user already used its only token
+        MockHttpServletRequest first = new MockHttpServletRequest("POST", "/api/session/1/participate/2");
+        MockHttpServletResponse firstResponse = new MockHttpServletResponse();
+        rateLimitFilter.doFilterInternal(first, firstResponse, filterChain);
+        MockHttpServletRequest second = new MockHttpServletRequest("POST", "/api/session/3/participate/2");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act: Execute the filter again for the same user
+        rateLimitFilter.doFilterInternal(second, response, filterChain);
+
+        // Assert: The second request is rejected and counted
+        assertEquals(429, response.getStatus());
+        assertEquals("60", response.getHeader(HttpHeaders.RETRY_AFTER));
+        verify(filterChain).doFilter(first, firstResponse);
+        verify(filterChain, never()).doFilter(second, response);
+        assertEquals(1.0, meterRegistry.get("rate.limit.rejected").tag("rule", "participate").counter().count());
+    }
+
+    @Test
+    @Tag("Security")
+    @DisplayName("Test each user should have its own bucket")
+    void testDoFilterInternalOtherKey() throws ServletException, IOException {
+        // Arrange: A first user used its only token
+        rateLimitFilter.doFilterInternal(new MockHttpServletRequest("POST", "/api/session/1/participate/2"),
+            new MockHttpServletResponse(), filterChain);
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/session/1/participate/3");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act: Execute the filter for another user
+        rateLimitFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert: The other user goes through
+        assertEquals(200, response.getStatus());
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    @Tag("Security")
+    @DisplayName("Test a request matching no rule should never be limited")
+    void testDoFilterInternalNoRule() throws ServletException, IOException {
+        // Arrange: A request on a route without rule
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/session/1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act: Execute the filter more often than any limit
+        rateLimitFilter.doFilterInternal(request, response, filterChain);
+        rateLimitFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert: Every request goes through
+        verify(filterChain, times(2)).doFilter(request, response);
+    }
+}
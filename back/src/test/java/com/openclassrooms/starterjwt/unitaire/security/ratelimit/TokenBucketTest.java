@@ -0,0 +1,58 @@
+package com.openclassrooms.starterjwt.unitaire.security.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.starterjwt.security.ratelimit.TokenBucket;
+
+public class TokenBucketTest {
+
+    private static final long PERIOD = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    @Tag("Security")
+    @DisplayName("Test a full bucket should allow a burst of its capacity then ask to wait one period")
+    void testBurst() {
+        // Arrange: A bucket of 3 tokens given back one per second
+        TokenBucket bucket = new TokenBucket(3, PERIOD, 0);
+
+        // Act & Assert: The burst is allowed, the next request waits one period
+        assertEquals(0, bucket.tryConsume(0));
+        assertEquals(0, bucket.tryConsume(0));
+        assertEquals(0, bucket.tryConsume(0));
+        assertEquals(PERIOD, bucket.tryConsume(0));
+    }
+
+    @Test
+    @Tag("Security")
+    @DisplayName("Test an empty bucket should give a token back every period")
+    void testRefill() {
+        // Arrange: Empty a bucket of 2 tokens
+        TokenBucket bucket = new TokenBucket(2, PERIOD, 0);
+        bucket.tryConsume(0);
+        bucket.tryConsume(0);
+
+        // Act & Assert: Half a period later one still waits, a full period later one token is back
+        assertEquals(PERIOD / 2, bucket.tryConsume(PERIOD / 2));
+        assertEquals(0, bucket.tryConsume(PERIOD));
+        assertEquals(PERIOD, bucket.tryConsume(PERIOD));
+    }
+
+    @Test
+    @Tag("Security")
+    @DisplayName("Test an idle bucket should not hold more than its capacity")
+    void testIdle() {
+        // Arrange: A bucket of 2 tokens left idle for a long time
+        TokenBucket bucket = new TokenBucket(2, PERIOD, 0);
+        long later = 100 * PERIOD;
+
+        // Act & Assert: Only the capacity is available
+        assertEquals(0, bucket.tryConsume(later));
+        assertEquals(0, bucket.tryConsume(later));
+        assertEquals(PERIOD, bucket.tryConsume(later));
+    }
+}
@@ -0,0 +1,156 @@
+package com.openclassrooms.starterjwt.unitaire.security.services;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import com.openclassrooms.starterjwt.repository.UserEmail;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.services.EmailBloomFilter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class EmailBloomFilterTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private EmailBloomFilter emailBloomFilter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        emailBloomFilter = new EmailBloomFilter(userRepository, 1000, 0.01, 0.1, 60000, meterRegistry);
+    }
+
+    @Test
+    @Tag("Security")
+    @DisplayName("Test the filter should answer maybe present until it is built")
+    void testMightContainBeforeRebuild() {
+        // Act & Assert: Every email has to be looked up before the first rebuild
+        assertTrue(emailBloomFilter.mightContain("unknown@test.com"));
+    }
+
+    @Test
+    @Tag("Security")
+    @DisplayName("Test the rebuilt filter should know the registered emails whatever their case")
+    void testRebuild() {
+        // Arrange: Two users are registered
+        when(userRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class)))
+            .thenReturn(Arrays.asList(userEmail(1L, "yoga@studio.com"), userEmail(2L, "toto@toto.com")));
+
+        // Act: Build the filter
+        emailBloomFilter.rebuild();
+
+        // Assert: Registered emails may be present, an unknown one is skipped and counted
+        assertTrue(emailBloomFilter.mightContain("yoga@studio.com"));
+        assertTrue(emailBloomFilter.mightContain("TOTO@toto.com"));
+        assertFalse(emailBloomFilter.mightContain("unknown@test.com"));
+        assertEquals(1.0, meterRegistry.get("email.filter.skipped.lookups").counter().count());
+        assertEquals(2.0, meterRegistry.get("email.filter.insertions").gauge().value());
+    }
+
+    @Test
+    @Tag("Security")
+    @DisplayName("Test an email added after the rebuild should be known")
+    void testPut() {
+        // Arrange: Build an empty filter
+        when(userRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class)))
+            .thenReturn(Collections.emptyList());
+        emailBloomFilter.rebuild();
+
+        // Act: Register a new email
+        emailBloomFilter.put("new@test.com");
+
+        // Assert: The new email may be present
+        assertTrue(emailBloomFilter.mightContain("new@test.com"));
+    }
+
+    @Test
+    @Tag("Security")
+    @DisplayName("Test an email differing only by its accents should share the bits of the registered one")
+    void testAccentInsensitive() {
+        // Arrange: A user registered with an accented email
+        when(userRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class)))
+            .thenReturn(Collections.singletonList(userEmail(1L, "José@studio.com")));
+
+        // Act: Build the filter
+        emailBloomFilter.rebuild();
+
+        // Assert: The collation matches the email without accent, so it must be looked up
+        assertTrue(emailBloomFilter.mightContain("jose@studio.com"));
+    }
+
+    @Test
+    @Tag("Security")
+    @DisplayName("Test a refresh should add the users created since the previous one, whatever their id")
+    void testRefresh() {
+        // Arrange: Build the filter with a user of id 100, another node then commits id 7 from an older block
+        when(userRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Pageable.class)))
+            .thenReturn(Collections.singletonList(userEmail(100L, "yoga@studio.com")));
+        emailBloomFilter.rebuild();
+        LocalDateTime rebuiltAt = LocalDateTime.now();
+        when(userRepository.findByCreatedAtGreaterThanEqual(any(LocalDateTime.class)))
+            .thenReturn(Arrays.asList(userEmail(100L, "yoga@studio.com"), userEmail(7L, "other@node.com")));
+
+        // Act: Refresh the filter
+        emailBloomFilter.refresh();
+
+        // Assert: The user below the highest id may be present, the one read again in the overlap is not counted twice
+        ArgumentCaptor<LocalDateTime> since = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(userRepository).findByCreatedAtGreaterThanEqual(since.capture());
+        assertFalse(since.getValue().isAfter(rebuiltAt.minusSeconds(60)));
+        assertTrue(emailBloomFilter.mightContain("other@node.com"));
+        assertEquals(2.0, meterRegistry.get("email.filter.insertions").gauge().value());
+    }
+
+    @Test
+    @Tag("Security")
+    @DisplayName("Test a failed rebuild should keep every email looked up")
+    void testRebuildFailure() {
+        // Arrange: The database is unavailable
+        when(userRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class)))
+            .thenThrow(new IllegalStateException("unavailable"));
+
+        // Act: Try to build the filter
+        emailBloomFilter.rebuild();
+
+        // Assert: The filter still answers maybe present
+        assertTrue(emailBloomFilter.mightContain("unknown@test.com"));
+    }
+
+    private static UserEmail userEmail(Long id, String email) {
+        return new UserEmail() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getEmail() {
+                return email;
+            }
+        };
+    }
+}
@@ -0,0 +1,100 @@
+package com.openclassrooms.starterjwt.unitaire.security.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.starterjwt.security.services.UserDetailsCache;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class UserDetailsCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private UserDetailsCache userDetailsCache;
+
+    private UserDetailsImpl userDetails;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        userDetailsCache = new UserDetailsCache(100, 60000, meterRegistry);
+        userDetails = UserDetailsImpl.builder().id(1L).username("user@test.com").build();
+    }
+
+    @Test
+    @Tag("Service")
+    @DisplayName("Test a cached principal should be found whatever the email case")
+    void testGet() {
+        // Act: Cache the principal
+        userDetailsCache.put(userDetails);
+
+        // Assert: It is found with another case and the hit is recorded
+        assertEquals(userDetails, userDetailsCache.get("USER@test.com"));
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "principals").tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    @Tag("Service")
+    @DisplayName("Test evict should remove the principal cached under the email")
+    void testEvict() {
+        // Arrange: Cache the principal
+        userDetailsCache.put(userDetails);
+
+        // Act: Evict it by email
+        userDetailsCache.evict("user@test.com");
+
+        // Assert: It is no longer cached
+        assertNull(userDetailsCache.get("user@test.com"));
+    }
+
+    @Test
+    @Tag("Service")
+    @DisplayName("Test evictById should remove the principal of a deleted user")
+    void testEvictById() {
+        // Arrange: Cache the principal
+        userDetailsCache.put(userDetails);
+
+        // Act: Evict it by user id
+        userDetailsCache.evictById(1L);
+
+        // Assert: It is no longer cached
+        assertNull(userDetailsCache.get("user@test.com"));
+    }
+
+    @Test
+    @Tag("Service")
+    @DisplayName("Test evictById should remove the principal cached under the latest email")
+    void testEvictByIdAfterEmailChange() {
+        // Arrange: Cache the principal under two successive emails
+        userDetailsCache.put(userDetails);
+        userDetailsCache.put(UserDetailsImpl.builder().id(1L).username("renamed@test.com").build());
+
+        // Act: Evict it by user id
+        userDetailsCache.evictById(1L);
+
+        // Assert: Neither email is cached anymore
+        assertNull(userDetailsCache.get("user@test.com"));
+        assertNull(userDetailsCache.get("renamed@test.com"));
+    }
+
+    @Test
+    @Tag("Service")
+    @DisplayName("Test evictById should remove a principal cached twice under the same email")
+    void testEvictByIdAfterReplace() {
+        // Arrange: Two concurrent misses cache the same user one after the other
+        userDetailsCache.put(UserDetailsImpl.builder().id(Long.valueOf(1000L)).username("user@test.com").build());
+        userDetailsCache.put(UserDetailsImpl.builder().id(Long.valueOf(1000L)).username("user@test.com").build());
+
+        // Act: Evict it by user id
+        userDetailsCache.evictById(1000L);
+
+        // Assert: It is no longer cached
+        assertNull(userDetailsCache.get("user@test.com"));
+    }
+}
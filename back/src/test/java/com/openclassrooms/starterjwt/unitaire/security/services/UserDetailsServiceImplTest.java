@@ -4,12 +4,15 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -17,6 +20,9 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.services.EmailBloomFilter;
+import com.openclassrooms.starterjwt.security.services.UserDetailsCache;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
 import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,6 +34,12 @@ public class UserDetailsServiceImplTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private UserDetailsCache userDetailsCache;
+
+    @Mock
+    private EmailBloomFilter emailBloomFilter;
+
     @Mock
     private User mockUser;
 
@@ -37,12 +49,14 @@ public class UserDetailsServiceImplTest {
     void testLoadUserByUsername() {
         // Arrange: Set up mock responses
         String mockUsername = "username";
+        when(emailBloomFilter.mightContain(mockUsername)).thenReturn(true);
         when(userRepository.findByEmail(mockUsername)).thenReturn(Optional.of(mockUser));
         when(mockUser.getId()).thenReturn(1L);
         when(mockUser.getEmail()).thenReturn("test@test.com");
         when(mockUser.getLastName()).thenReturn("lastname");
         when(mockUser.getFirstName()).thenReturn("firstname");
         when(mockUser.getPassword()).thenReturn("password");
+        when(mockUser.isAdmin()).thenReturn(true);
 
         // Act: Call the method under test
         UserDetails res = userDetailsServiceImpl.loadUserByUsername(mockUsername);
@@ -50,6 +64,24 @@ public class UserDetailsServiceImplTest {
         // Assert: Verify the returned UserDetails
         assertEquals("test@test.com", res.getUsername());
         assertEquals("password", res.getPassword());
+        assertTrue(((UserDetailsImpl) res).getAdmin());
+        verify(userDetailsCache).put((UserDetailsImpl) res);
+    }
+
+    @Test
+    @Tag("Service")
+    @DisplayName("Test loadUserByUsername with a cached principal should not query the database")
+    void testLoadUserByUsernameCached() {
+        // Arrange: The principal is already cached
+        UserDetailsImpl cached = UserDetailsImpl.builder().id(1L).username("username").build();
+        when(userDetailsCache.get("username")).thenReturn(cached);
+
+        // Act: Call the method under test
+        UserDetails res = userDetailsServiceImpl.loadUserByUsername("username");
+
+        // Assert: The cached principal is returned without any lookup
+        assertEquals(cached, res);
+        verify(userRepository, never()).findByEmail("username");
     }
 
     @Test
@@ -58,11 +90,47 @@ public class UserDetailsServiceImplTest {
     void testLoadUserByUsernameNotFound() {
         // Arrange: Set up mock responses
         String mockUsername = "username";
+        when(emailBloomFilter.mightContain(mockUsername)).thenReturn(true);
         when(userRepository.findByEmail(mockUsername)).thenReturn(Optional.empty());
 
         // Act & Assert: Verify that the method throws UsernameNotFoundException
         assertThrows(UsernameNotFoundException.class, () -> {
             userDetailsServiceImpl.loadUserByUsername(mockUsername);
         });
+        verify(emailBloomFilter).recordFalsePositive();
+    }
+
+    @Test
+    @Tag("Service")
+    @DisplayName("Test loadUserByUsername with an email unknown to the filter should not query the database")
+    void testLoadUserByUsernameFilteredOut() {
+        // Arrange: The email filter knows the email is not registered
+        when(emailBloomFilter.mightContain("unknown@test.com")).thenReturn(false);
+
+        // Act & Assert: Verify that the method throws without any lookup
+        assertThrows(UsernameNotFoundException.class, () -> {
+            userDetailsServiceImpl.loadUserByUsername("unknown@test.com");
+        });
+        verify(userRepository, never()).findByEmail("unknown@test.com");
+    }
+
+    @Test
+    @Tag("Service")
+    @DisplayName("Test updatePassword should store the re-encoded password and evict the cached principal")
+    void testUpdatePassword() {
+        // Arrange: A user whose password was re-encoded at login
+        User user = new User("test@test.com", "lastname", "firstname", "oldHash", false);
+        user.setId(1L);
+        UserDetailsImpl userDetails = UserDetailsImpl.builder().id(1L).username("test@test.com").password("oldHash").build();
+        when(userRepository.findByEmail("test@test.com")).thenReturn(Optional.of(user));
+
+        // Act: Call the method under test
+        UserDetails res = userDetailsServiceImpl.updatePassword(userDetails, "newHash");
+
+        // Assert: The new hash is saved and returned, and the stale principal evicted
+        assertEquals("newHash", res.getPassword());
+        assertEquals("newHash", user.getPassword());
+        verify(userRepository).save(user);
+        verify(userDetailsCache).evict("test@test.com");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,163 @@
+package com.openclassrooms.starterjwt.unitaire.services;
+
+import java.sql.ResultSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import org.mockito.Mock;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import com.openclassrooms.starterjwt.exception.NotFoundException;
+import com.openclassrooms.starterjwt.payload.response.EnrollmentResult;
+import com.openclassrooms.starterjwt.repository.routing.ReadYourWritesWindow;
+import com.openclassrooms.starterjwt.services.EnrollmentStatus;
+import com.openclassrooms.starterjwt.services.SessionCacheEvictor;
+import com.openclassrooms.starterjwt.services.SessionEnrollmentService;
+
+@ExtendWith(MockitoExtension.class)
+public class SessionEnrollmentServiceTest {
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Mock
+    private SessionCacheEvictor sessionCacheEvictor;
+
+    @Mock
+    private ReadYourWritesWindow readYourWritesWindow;
+
+    @Mock
+    private ResultSet resultSet;
+
+    private SessionEnrollmentService sessionEnrollmentService;
+
+    @BeforeEach
+    void setUp() {
+        sessionEnrollmentService = new SessionEnrollmentService(jdbcTemplate, sessionCacheEvictor, readYourWritesWindow);
+    }
+
+    @Test
+    @Tag("Participate")
+    @DisplayName("Test enrollUsers should fill the free seats, queue the others and report every user once")
+    void testEnrollUsers() throws Exception {
+        // Arrange: Session 5 has one seat left, user 3 already participates and user 4 does not exist
+        lockedSessions(1);
+        when(resultSet.getLong("id")).thenReturn(5L);
+        when(resultSet.getInt("capacity")).thenReturn(2);
+        when(resultSet.wasNull()).thenReturn(false);
+        when(resultSet.getInt("seats_taken")).thenReturn(1);
+        when(jdbcTemplate.queryForList(contains("FROM USERS"), any(SqlParameterSource.class), eq(Long.class))).thenReturn(Arrays.asList(1L, 2L, 3L));
+        when(jdbcTemplate.queryForList(contains("FROM PARTICIPATE"), any(SqlParameterSource.class), eq(Long.class))).thenReturn(Collections.singletonList(3L));
+        when(jdbcTemplate.queryForList(contains("FROM WAITLIST"), any(SqlParameterSource.class), eq(Long.class))).thenReturn(Collections.emptyList());
+
+        // Act: Enroll the users, one of them twice
+        List<EnrollmentResult> res = sessionEnrollmentService.enrollUsers(5L, Arrays.asList(1L, 2L, 3L, 4L, 1L));
+
+        // Assert: One result per distinct user, in the requested order
+        assertEquals(Arrays.asList(
+            new EnrollmentResult(5L, 1L, EnrollmentStatus.PARTICIPATING),
+            new EnrollmentResult(5L, 2L, EnrollmentStatus.WAITLISTED),
+            new EnrollmentResult(5L, 3L, EnrollmentStatus.ALREADY_PARTICIPATING),
+            new EnrollmentResult(5L, 4L, EnrollmentStatus.NOT_FOUND)), res);
+
+        // Assert: Each table is written with a single batch
+        assertEquals(1, batch("INSERT INTO PARTICIPATE").length);
+        assertEquals(1, batch("INSERT INTO WAITLIST").length);
+        SqlParameterSource[] seats = batch("UPDATE SESSIONS");
+        assertEquals(1, seats.length);
+        assertEquals(1, seats[0].getValue("seats"));
+
+        // Assert: The cached session and roster are evicted, and the caller reads its writes
+        verify(sessionCacheEvictor).evictSessions(Collections.singleton(5L));
+        verify(readYourWritesWindow).pinCurrentUser();
+    }
+
+    @Test
+    @Tag("Participate")
+    @DisplayName("Test enrollUsers in an unknown session should throw NotFoundException")
+    void testEnrollUsersSessionNotFound() {
+        // Arrange: No session row is locked
+        lockedSessions(0);
+
+        // Act & Assert: Nothing is written
+        assertThrows(NotFoundException.class, () -> sessionEnrollmentService.enrollUsers(5L, Arrays.asList(1L, 2L)));
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), any(SqlParameterSource[].class));
+    }
+
+    @Test
+    @Tag("Participate")
+    @DisplayName("Test enrollSessions should take a seat where one is free and queue the user elsewhere")
+    void testEnrollSessions() throws Exception {
+        // Arrange: Session 5 is unlimited, session 6 is full and session 7 does not exist
+        when(jdbcTemplate.queryForList(contains("FROM USERS"), any(SqlParameterSource.class), eq(Long.class))).thenReturn(Collections.singletonList(1L));
+        lockedSessions(2);
+        when(resultSet.getLong("id")).thenReturn(5L, 6L);
+        when(resultSet.getInt("capacity")).thenReturn(0, 1);
+        when(resultSet.wasNull()).thenReturn(true, false);
+        when(resultSet.getInt("seats_taken")).thenReturn(0, 1);
+        when(jdbcTemplate.queryForList(contains("FROM PARTICIPATE"), any(SqlParameterSource.class), eq(Long.class))).thenReturn(Collections.emptyList());
+        when(jdbcTemplate.queryForList(contains("FROM WAITLIST"), any(SqlParameterSource.class), eq(Long.class))).thenReturn(Collections.emptyList());
+
+        // Act: Enroll the user
+        List<EnrollmentResult> res = sessionEnrollmentService.enrollSessions(1L, Arrays.asList(5L, 6L, 7L));
+
+        // Assert: One result per session, in the requested order
+        assertEquals(Arrays.asList(
+            new EnrollmentResult(5L, 1L, EnrollmentStatus.PARTICIPATING),
+            new EnrollmentResult(6L, 1L, EnrollmentStatus.WAITLISTED),
+            new EnrollmentResult(7L, 1L, EnrollmentStatus.NOT_FOUND)), res);
+
+        // Assert: Only the session that got a participant is evicted, and the caller reads its writes
+        verify(sessionCacheEvictor).evictSessions(Collections.singleton(5L));
+        verify(readYourWritesWindow).pinCurrentUser();
+    }
+
+    @Test
+    @Tag("Participate")
+    @DisplayName("Test enrollSessions for an unknown user should throw NotFoundException")
+    void testEnrollSessionsUserNotFound() {
+        // Arrange: The user does not exist
+        when(jdbcTemplate.queryForList(contains("FROM USERS"), any(SqlParameterSource.class), eq(Long.class))).thenReturn(Collections.emptyList());
+
+        // Act & Assert: No session is locked
+        assertThrows(NotFoundException.class, () -> sessionEnrollmentService.enrollSessions(1L, Arrays.asList(5L, 6L)));
+        verify(jdbcTemplate, never()).query(anyString(), any(SqlParameterSource.class), any(RowCallbackHandler.class));
+    }
+
+    private void lockedSessions(int rows) {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(2);
+            for (int i = 0; i < rows; i++) {
+                handler.processRow(resultSet);
+            }
+            return null;
+        }).when(jdbcTemplate).query(contains("FOR UPDATE"), any(SqlParameterSource.class), any(RowCallbackHandler.class));
+    }
+
+    private SqlParameterSource[] batch(String statement) {
+        ArgumentCaptor<SqlParameterSource[]> captor = ArgumentCaptor.forClass(SqlParameterSource[].class);
+        verify(jdbcTemplate).batchUpdate(startsWith(statement), captor.capture());
+        return captor.getValue();
+    }
+}
@@ -0,0 +1,98 @@
+package com.openclassrooms.starterjwt.unitaire.services;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.anyString;
+import org.mockito.Mock;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.openclassrooms.starterjwt.services.SessionExportFormat;
+import com.openclassrooms.starterjwt.services.SessionExportService;
+
+@ExtendWith(MockitoExtension.class)
+public class SessionExportServiceTest {
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement preparedStatement;
+
+    @Mock
+    private ResultSet resultSet;
+
+    private SessionExportService sessionExportService;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        sessionExportService = new SessionExportService(dataSource, 100);
+
+        // Two sessions: the first one with the users 3 and 4, the second one without participant or teacher
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, true, true, false);
+        when(resultSet.getLong("id")).thenReturn(1L, 1L, 1L, 2L, 2L);
+        when(resultSet.getString("name")).thenReturn("Yoga", "Stretch, \"soft\"");
+        when(resultSet.getTimestamp("date")).thenReturn(Timestamp.valueOf("2024-01-02 10:00:00"), Timestamp.valueOf("2024-01-03 10:00:00"));
+        when(resultSet.getString("description")).thenReturn("Morning", "Evening");
+        when(resultSet.getLong("teacher_id")).thenReturn(7L, 0L);
+        lenient().when(resultSet.getTimestamp("created_at")).thenReturn(null);
+        lenient().when(resultSet.getTimestamp("updated_at")).thenReturn(null);
+        when(resultSet.getLong("user_id")).thenReturn(3L, 4L, 0L);
+        when(resultSet.wasNull()).thenReturn(false, false, false, true, true);
+    }
+
+    @Test
+    @Tag("Read")
+    @DisplayName("Test exporting as NDJSON should write one JSON line per session")
+    void testExportNdjson() throws IOException, SQLException {
+        // Act: Export the sessions
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        sessionExportService.export(SessionExportFormat.NDJSON, out);
+
+        // Assert: Each session is written with its participants, from a fetch size bounded cursor
+        assertEquals(
+            "{\"id\":1,\"name\":\"Yoga\",\"date\":\"2024-01-02T10:00\",\"description\":\"Morning\",\"teacher_id\":7,\"users\":[3,4],\"createdAt\":null,\"updatedAt\":null}\n"
+            + "{\"id\":2,\"name\":\"Stretch, \\\"soft\\\"\",\"date\":\"2024-01-03T10:00\",\"description\":\"Evening\",\"teacher_id\":null,\"users\":[],\"createdAt\":null,\"updatedAt\":null}\n",
+            out.toString(StandardCharsets.UTF_8.name()));
+        verify(preparedStatement).setFetchSize(100);
+    }
+
+    @Test
+    @Tag("Read")
+    @DisplayName("Test exporting as CSV should write a header then one escaped line per session")
+    void testExportCsv() throws IOException {
+        // Act: Export the sessions
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        sessionExportService.export(SessionExportFormat.CSV, out);
+
+        // Assert: Each session is one line, participants are separated by semicolons
+        assertEquals(
+            "id,name,date,description,teacher_id,users,createdAt,updatedAt\r\n"
+            + "1,Yoga,2024-01-02T10:00,Morning,7,3;4,,\r\n"
+            + "2,\"Stretch, \"\"soft\"\"\",2024-01-03T10:00,Evening,,,,\r\n",
+            out.toString(StandardCharsets.UTF_8.name()));
+    }
+}
@@ -2,12 +2,15 @@ package com.openclassrooms.starterjwt.unitaire.services;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,19 +18,35 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
 
 import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.exception.NotFoundException;
 import com.openclassrooms.starterjwt.models.Session;
 import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionDetail;
+import com.openclassrooms.starterjwt.repository.SessionParticipant;
 import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.SessionSummary;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.repository.routing.ReadYourWritesWindow;
+import com.openclassrooms.starterjwt.services.Participation;
+import com.openclassrooms.starterjwt.services.SessionCacheEvictor;
+import com.openclassrooms.starterjwt.services.SessionCursor;
+import com.openclassrooms.starterjwt.services.SessionPeriod;
 import com.openclassrooms.starterjwt.services.SessionService;
 
 @ExtendWith(MockitoExtension.class)
@@ -39,6 +58,12 @@ public class SessionServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private SessionCacheEvictor sessionCacheEvictor;
+
+    @Mock
+    private ReadYourWritesWindow readYourWritesWindow;
+
     // Create the SessionService instance with mocked dependencies
     @InjectMocks
     private SessionService sessionService;
@@ -46,9 +71,6 @@ public class SessionServiceTest {
     @Mock
     private Session session;
 
-    @Mock
-    private User mockedUser;
-
     @BeforeEach
     void setUp() {
         LocalDateTime currentTime = LocalDateTime.now();
@@ -75,11 +97,56 @@ public class SessionServiceTest {
         // Act: Call the create method
         Session createdSession = sessionService.create(session);
 
-        // Assert: Verify that the session was saved and returned correctly
+        // Assert: Verify that the session was saved, its seats counted and returned correctly
         verify(sessionRepository).save(session);
+        verify(sessionRepository).syncSeatsTaken(session.getId());
         assertEquals(session, createdSession);
     }
 
+    @Test
+    @Tag("Create")
+    @DisplayName("Test createSession with more participants than seats should throw BadRequestException")
+    void createSessionOverCapacity() {
+        // Arrange: Two participants for a single seat
+        session.setCapacity(1);
+        session.getUsers().add(new User());
+        session.getUsers().add(new User());
+
+        // Act & Assert: Nothing is saved
+        assertThrows(BadRequestException.class, () -> sessionService.create(session));
+        verify(sessionRepository, never()).save(any());
+    }
+
+    @Test
+    @Tag("Create")
+    @DisplayName("Test createAll should save the sessions and count the seats of those with participants at once")
+    void testCreateAll() {
+        // Arrange: Two sessions, only the second one with a participant
+        Session empty = new Session().setId(1L).setUsers(new ArrayList<>());
+        Session withUser = new Session().setId(2L).setUsers(new ArrayList<>(Collections.singletonList(new User())));
+        List<Session> sessions = Arrays.asList(empty, withUser);
+        when(sessionRepository.saveAll(sessions)).thenReturn(sessions);
+
+        // Act: Create them in one call
+        List<Session> res = sessionService.createAll(sessions);
+
+        // Assert: One save for all of them and one recount for the session with a participant
+        verify(sessionRepository).syncSeatsTakenIn(Collections.singletonList(2L));
+        assertEquals(sessions, res);
+    }
+
+    @Test
+    @Tag("Create")
+    @DisplayName("Test createAll with a session over capacity should save none of them")
+    void testCreateAllOverCapacity() {
+        // Arrange: The second session has two participants for a single seat
+        Session full = new Session().setCapacity(1).setUsers(new ArrayList<>(Arrays.asList(new User(), new User())));
+
+        // Act & Assert: Nothing is saved
+        assertThrows(BadRequestException.class, () -> sessionService.createAll(Arrays.asList(session, full)));
+        verify(sessionRepository, never()).saveAll(any());
+    }
+
     @Test 
     @Tag("Delete")
     @DisplayName("Test deleteSession should remove the session by ID")
@@ -95,6 +162,18 @@ public class SessionServiceTest {
         verify(sessionRepository).deleteById(mockedSession.getId());
     }
 
+    @Test
+    @Tag("Read")
+    @DisplayName("Test exists should check the session without loading it")
+    void testExists() {
+        // Arrange: The session exists
+        when(sessionRepository.existsById(1L)).thenReturn(true);
+
+        // Act & Assert: Verify that only the existence was read
+        assertTrue(sessionService.exists(1L));
+        verify(sessionRepository, never()).findWithUsersById(any());
+    }
+
     @Test
     @Tag("Read")
     @DisplayName("Test listSessions should return all sessions")
@@ -113,48 +192,87 @@ public class SessionServiceTest {
         assertEquals(sessions, res);
     }
 
+    @Test
+    @Tag("Read")
+    @DisplayName("Test findPage should read the session summaries after the cursor position")
+    void findPage() {
+        // Arrange: A cursor and the sessions after it
+        Date cursorDate = new Date(1700000000000L);
+        SessionCursor cursor = new SessionCursor(cursorDate, 8L);
+        List<SessionSummary> sessions = new ArrayList<>();
+        sessions.add(mock(SessionSummary.class));
+        when(sessionRepository.findSummaries(null, null, 1L, cursorDate, 8L, 5L, PageRequest.of(0, 21))).thenReturn(sessions);
+
+        // Act: Call the findPage method
+        List<SessionSummary> res = sessionService.findPage(cursor, 21, null, null, 1L, 5L);
+
+        // Assert: Verify that the page was returned
+        assertEquals(sessions, res);
+    }
+
     @Test
     @Tag("Participate")
-    @DisplayName("Test participateSession should add user to session participants")
+    @DisplayName("Test participateSession should take a seat and insert the participation")
     void participateSession() {
-        // Arrange: Set up mock responses
-        when(userRepository.findById(mockedUser.getId())).thenReturn(Optional.of(mockedUser));
-        when(sessionRepository.findById(session.getId())).thenReturn(Optional.of(session));
+        // Arrange: A seat is free and the participation row is inserted
+        when(sessionRepository.claimSeat(1L)).thenReturn(1);
+        when(sessionRepository.insertParticipant(1L, 6L)).thenReturn(1);
 
         // Act: Call the participate method
-        sessionService.participate(session.getId(), mockedUser.getId());
+        Participation res = sessionService.participate(1L, 6L);
+
+        // Assert: Verify that neither the session nor the user was loaded
+        assertEquals(Participation.PARTICIPATING, res);
+        verify(sessionRepository, never()).findById(any());
+        verify(userRepository, never()).findById(any());
+        verify(sessionCacheEvictor).evictRoster(1L);
+        verify(readYourWritesWindow).pinCurrentUser();
+    }
 
-        // Assert: Verify that the user was added to the session participants
-        verify(sessionRepository).findById(session.getId());
-        verify(userRepository).findById(mockedUser.getId());
-        assertTrue(session.getUsers().contains(mockedUser));
+    @Test
+    @Tag("Participate")
+    @DisplayName("Test participateSession in a full session should queue the user")
+    void participateSessionFull() {
+        // Arrange: No seat is left
+        when(sessionRepository.claimSeat(1L)).thenReturn(0);
+        when(sessionRepository.lockById(1L)).thenReturn(Optional.of(1L));
+        when(sessionRepository.insertWaitlisted(1L, 6L)).thenReturn(1);
+
+        // Act: Call the participate method
+        Participation res = sessionService.participate(1L, 6L);
+
+        // Assert: The user waits for a seat
+        assertEquals(Participation.WAITLISTED, res);
+        verify(sessionRepository, never()).insertParticipant(any(), any());
     }
 
     @Test
     @Tag("Participate")
     @DisplayName("Test participateSession with null session should throw NotFoundException")
     void participateSessionNull() {
-        // Arrange: Set up mock responses for a null session
-        when(userRepository.findById(6L)).thenReturn(Optional.of(mockedUser));
-        when(sessionRepository.findById(session.getId())).thenReturn(Optional.empty());
+        // Arrange: No seat is claimed because the session does not exist
+        when(sessionRepository.claimSeat(1L)).thenReturn(0);
+        when(sessionRepository.lockById(1L)).thenReturn(Optional.empty());
 
         // Act & Assert: Verify that a NotFoundException is thrown
         assertThrows(NotFoundException.class, () -> {
-            sessionService.participate(session.getId(), 6L);
+            sessionService.participate(1L, 6L);
         });
+        verify(sessionRepository, never()).insertWaitlisted(any(), any());
     }
 
     @Test
     @Tag("Participate")
     @DisplayName("Test participateSession with null user should throw NotFoundException")
     void participateSessionUserNull() {
-        // Arrange: Set up mock responses for a null user
-        when(userRepository.findById(6L)).thenReturn(Optional.empty());
-        when(sessionRepository.findById(session.getId())).thenReturn(Optional.of(session));
+        // Arrange: Nothing is inserted because the user does not exist
+        when(sessionRepository.claimSeat(1L)).thenReturn(1);
+        when(sessionRepository.insertParticipant(1L, 6L)).thenReturn(0);
+        when(userRepository.existsById(6L)).thenReturn(false);
 
         // Act & Assert: Verify that a NotFoundException is thrown
         assertThrows(NotFoundException.class, () -> {
-            sessionService.participate(session.getId(), 6L);
+            sessionService.participate(1L, 6L);
         });
     }
 
@@ -162,88 +280,276 @@ public class SessionServiceTest {
     @Tag("Participate")
     @DisplayName("Test participateSession with already participating user should throw BadRequestException")
     void participateSessionAlreadyParticipate() {
-        // Arrange: Create a user and add them to the session
-        User newMockedUser = new User("email@test.com", "lastName", "firstName", "password", false);
-        newMockedUser.setId(67L);
+        // Arrange: The duplicate row is ignored although both exist
+        when(sessionRepository.claimSeat(1L)).thenReturn(1);
+        when(sessionRepository.insertParticipant(1L, 67L)).thenReturn(0);
+        when(userRepository.existsById(67L)).thenReturn(true);
 
-        Session mockedSession = new Session().setName("Name").setDate(new Date()).setDescription("Description");
-        mockedSession.setUsers(new ArrayList<>());
-        mockedSession.getUsers().add(newMockedUser);
+        // Act & Assert: Verify that a BadRequestException is thrown
+        assertThrows(BadRequestException.class, () -> {
+            sessionService.participate(1L, 67L);
+        });
+    }
 
-        // Set up mock responses
-        when(userRepository.findById(67L)).thenReturn(Optional.of(newMockedUser));
-        when(sessionRepository.findById(mockedSession.getId())).thenReturn(Optional.of(mockedSession));
+    @Test
+    @Tag("Participate")
+    @DisplayName("Test participateSession with an already waiting user should throw BadRequestException")
+    void participateSessionAlreadyWaitlisted() {
+        // Arrange: The session is full and the user is already queued
+        when(sessionRepository.claimSeat(1L)).thenReturn(0);
+        when(sessionRepository.lockById(1L)).thenReturn(Optional.of(1L));
+        when(sessionRepository.insertWaitlisted(1L, 67L)).thenReturn(0);
+        when(userRepository.existsById(67L)).thenReturn(true);
 
         // Act & Assert: Verify that a BadRequestException is thrown
         assertThrows(BadRequestException.class, () -> {
-            sessionService.participate(mockedSession.getId(), newMockedUser.getId());
+            sessionService.participate(1L, 67L);
         });
     }
 
     @Test
     @Tag("Unparticipate")
-    @DisplayName("Test noLongerParticipateSession should remove user from session participants")
+    @DisplayName("Test noLongerParticipateSession should release the seat without loading the roster")
     void noLongerParticipateSession() {
-        // Arrange: Create a user and add them to the session
-        User newMockedUser = new User("email@test.com", "lastName", "firstName", "password", false);
-        newMockedUser.setId(67L);
+        // Arrange: The participation row is deleted and nobody is waiting
+        when(sessionRepository.lockById(1L)).thenReturn(Optional.of(1L));
+        when(sessionRepository.deleteParticipant(1L, 67L)).thenReturn(1);
+        when(sessionRepository.findNextWaitlisted(1L)).thenReturn(Optional.empty());
 
-        Session mockedSession = new Session().setName("Name").setDate(new Date()).setDescription("Description");
-        mockedSession.setUsers(new ArrayList<>());
-        mockedSession.getUsers().add(newMockedUser);
+        // Act: Call the noLongerParticipate method
+        sessionService.noLongerParticipate(1L, 67L);
+
+        // Assert: Verify that the seat was released and the roster was neither loaded nor rewritten
+        verify(sessionRepository).releaseSeat(1L);
+        verify(sessionRepository, never()).findById(any());
+        verify(sessionRepository, never()).save(any());
+        verify(sessionCacheEvictor).evictRoster(1L);
+        verify(readYourWritesWindow).pinCurrentUser();
+    }
+
+    @Test
+    @Tag("Unparticipate")
+    @DisplayName("Test noLongerParticipateSession should promote the first waitlisted user")
+    void noLongerParticipateSessionPromote() {
+        // Arrange: User 8 waits for the seat of user 67
+        when(sessionRepository.lockById(1L)).thenReturn(Optional.of(1L));
+        when(sessionRepository.deleteParticipant(1L, 67L)).thenReturn(1);
+        when(sessionRepository.findNextWaitlisted(1L)).thenReturn(Optional.of(8L), Optional.empty());
+        when(sessionRepository.claimSeat(1L)).thenReturn(1);
+        when(sessionRepository.insertParticipant(1L, 8L)).thenReturn(1);
 
-        // Set up mock responses
-        when(sessionRepository.findById(mockedSession.getId())).thenReturn(Optional.of(mockedSession));
+        // Act: Call the noLongerParticipate method
+        sessionService.noLongerParticipate(1L, 67L);
+
+        // Assert: User 8 left the waitlist for the seat
+        verify(sessionRepository).deleteWaitlisted(1L, 8L);
+        verify(sessionRepository).insertParticipant(1L, 8L);
+    }
+
+    @Test
+    @Tag("Unparticipate")
+    @DisplayName("Test noLongerParticipateSession of a waitlisted user should leave the waitlist")
+    void noLongerParticipateSessionWaitlisted() {
+        // Arrange: The user is only queued
+        when(sessionRepository.lockById(1L)).thenReturn(Optional.of(1L));
+        when(sessionRepository.deleteParticipant(1L, 6L)).thenReturn(0);
+        when(sessionRepository.deleteWaitlisted(1L, 6L)).thenReturn(1);
 
         // Act: Call the noLongerParticipate method
-        sessionService.noLongerParticipate(mockedSession.getId(), newMockedUser.getId());
+        sessionService.noLongerParticipate(1L, 6L);
 
-        // Assert: Verify that the user was removed from the session participants
-        verify(sessionRepository).findById(mockedSession.getId());
-        assertFalse(mockedSession.getUsers().contains(newMockedUser)); 
-        verify(sessionRepository).save(mockedSession);
+        // Assert: No seat was released
+        verify(sessionRepository, never()).releaseSeat(any());
     }
 
     @Test
     @Tag("Unparticipate")
     @DisplayName("Test noLongerParticipateSession with null session should throw NotFoundException")
     void noLongerParticipateSessionNull() {
-        // Arrange: Set up mock responses for a null session
-        when(sessionRepository.findById(session.getId())).thenReturn(Optional.empty());
+        // Arrange: The session does not exist
+        when(sessionRepository.lockById(1L)).thenReturn(Optional.empty());
 
         // Act & Assert: Verify that a NotFoundException is thrown
         assertThrows(NotFoundException.class, () -> {
-            sessionService.noLongerParticipate(session.getId(), 6L);
+            sessionService.noLongerParticipate(1L, 6L);
         });
     }
 
+    @Test
+    @Tag("Unparticipate")
+    @DisplayName("Test noLongerParticipateSession with a user not participating should throw BadRequestException")
+    void noLongerParticipateSessionNotParticipating() {
+        // Arrange: Nothing is deleted although the session exists
+        when(sessionRepository.lockById(1L)).thenReturn(Optional.of(1L));
+        when(sessionRepository.deleteParticipant(1L, 6L)).thenReturn(0);
+        when(sessionRepository.deleteWaitlisted(1L, 6L)).thenReturn(0);
+
+        // Act & Assert: Verify that a BadRequestException is thrown
+        assertThrows(BadRequestException.class, () -> {
+            sessionService.noLongerParticipate(1L, 6L);
+        });
+        verify(sessionRepository, never()).releaseSeat(any());
+    }
+
+    @Test
+    @Tag("Find")
+    @DisplayName("Test findUserPage of upcoming sessions should read from now on in ascending order")
+    void testFindUserPageUpcoming() {
+        // Arrange: The range starts in the past
+        Date yesterday = new Date(System.currentTimeMillis() - 86400000L);
+        List<SessionSummary> sessions = Collections.singletonList(mock(SessionSummary.class));
+        when(sessionRepository.findUserSummariesAscending(eq(3L), any(Date.class), isNull(), isNull(), isNull(), eq(PageRequest.of(0, 5))))
+            .thenReturn(sessions);
+
+        // Act: Read the upcoming sessions of the user
+        List<SessionSummary> res = sessionService.findUserPage(3L, SessionPeriod.UPCOMING, null, 5, yesterday, null);
+
+        // Assert: The start of the range was moved to now
+        ArgumentCaptor<Date> from = ArgumentCaptor.forClass(Date.class);
+        verify(sessionRepository).findUserSummariesAscending(eq(3L), from.capture(), isNull(), isNull(), isNull(), eq(PageRequest.of(0, 5)));
+        assertTrue(from.getValue().after(yesterday));
+        assertEquals(sessions, res);
+    }
+
+    @Test
+    @Tag("Find")
+    @DisplayName("Test findUserPage of past sessions should read before now in descending order after the cursor")
+    void testFindUserPagePast() {
+        // Arrange: A cursor from a previous page
+        SessionCursor cursor = new SessionCursor(new Date(1000L), 9L);
+        when(sessionRepository.findUserSummaries(eq(3L), isNull(), any(Date.class), eq(cursor.getDate()), eq(9L), eq(PageRequest.of(0, 5))))
+            .thenReturn(Collections.emptyList());
+
+        // Act: Read the next page of past sessions
+        List<SessionSummary> res = sessionService.findUserPage(3L, SessionPeriod.PAST, cursor, 5, null, null);
+
+        // Assert: The range ends now
+        assertTrue(res.isEmpty());
+    }
+
+    @Test
+    @Tag("Find")
+    @DisplayName("Test findUserPage without period should keep the requested range")
+    void testFindUserPageAll() {
+        // Arrange: A range in the future
+        Date from = new Date(System.currentTimeMillis() + 86400000L);
+        Date to = new Date(System.currentTimeMillis() + 2 * 86400000L);
+        when(sessionRepository.findUserSummaries(3L, from, to, null, null, PageRequest.of(0, 5))).thenReturn(Collections.emptyList());
+
+        // Act & Assert: The range is passed as is
+        assertTrue(sessionService.findUserPage(3L, null, null, 5, from, to).isEmpty());
+    }
+
     @Test
     @Tag("Read")
-    @DisplayName("Test getById should return the session")
+    @DisplayName("Test getById should return the session with its participants")
     void testGetById() {
         // Arrange: Set up mock responses
-        when(sessionRepository.findById(session.getId())).thenReturn(Optional.of(session));
+        when(sessionRepository.findWithUsersById(session.getId())).thenReturn(Optional.of(session));
         
         // Act: Call the getById method
         Session res = sessionService.getById(session.getId());
 
         // Assert: Verify that the session was returned correctly
-        verify(sessionRepository).findById(session.getId());
+        verify(sessionRepository).findWithUsersById(session.getId());
         assertEquals(session, res);
     }
 
+    @Test
+    @Tag("Read")
+    @DisplayName("Test getDetailById should read the session once and its participant ids apart")
+    void testGetDetailById() {
+        // Arrange: A session with two participants
+        SessionDetail detail = new SessionDetail(1L, "name", new Date(), "description", 2L, null, null, null);
+        when(sessionRepository.findDetailById(1L)).thenReturn(Optional.of(detail));
+        when(sessionRepository.findParticipantsBySessionId(1L)).thenReturn(Arrays.asList(participant(3L), participant(4L)));
+
+        // Act: Call the getDetailById method
+        SessionDetail res = sessionService.getDetailById(1L);
+
+        // Assert: Verify that the participant ids were set and no entity was loaded
+        assertEquals(detail, res);
+        assertEquals(Arrays.asList(3L, 4L), res.getUsers());
+        verify(sessionRepository, never()).findWithUsersById(any());
+    }
+
+    @Test
+    @Tag("Read")
+    @DisplayName("Test getDetailById should return null without reading the participants of a missing session")
+    void testGetDetailByIdNotFound() {
+        // Arrange: The session does not exist
+        when(sessionRepository.findDetailById(1L)).thenReturn(Optional.empty());
+
+        // Act: Call the getDetailById method
+        SessionDetail res = sessionService.getDetailById(1L);
+
+        // Assert: Verify that nothing was read past the session
+        assertNull(res);
+        verify(sessionRepository, never()).findParticipantsBySessionId(any());
+    }
+
     @Test
     @Tag("Update")
     @DisplayName("Test update should save and return the updated session")
     void testUpdate() {
         // Arrange: Set up mock responses
         when(sessionRepository.save(session)).thenReturn(session);
+        when(sessionRepository.findNextWaitlisted(session.getId())).thenReturn(Optional.empty());
 
         // Act: Call the update method
         Session res = sessionService.update(session.getId(), session);
 
-        // Assert: Verify that the session was updated and returned correctly
+        // Assert: Verify that the session was updated, its seats recounted and returned correctly
         verify(sessionRepository).save(session);
+        verify(sessionRepository).syncSeatsTaken(session.getId());
         assertEquals(session, res);
     }
-}
\ No newline at end of file
+
+    @Test
+    @Tag("Read")
+    @DisplayName("Test getETag should combine the session id and version")
+    void testGetETag() {
+        // Arrange: The session is at version 3
+        when(sessionRepository.findVersionById(7L)).thenReturn(Optional.of(3L));
+
+        // Act & Assert: The ETag changes with the version
+        assertEquals("7-3", sessionService.getETag(7L));
+    }
+
+    @Test
+    @Tag("Read")
+    @DisplayName("Test getETag of an unknown session should return null")
+    void testGetETagNotFound() {
+        // Arrange: The session does not exist
+        when(sessionRepository.findVersionById(7L)).thenReturn(Optional.empty());
+
+        // Act & Assert: No ETag is computed
+        assertNull(sessionService.getETag(7L));
+    }
+
+    @Test
+    @Tag("Read")
+    @DisplayName("Test getCollectionETag should change with the versions and participations of the page only")
+    void testGetCollectionETag() {
+        // Arrange: A page of one session at version 4, which the caller does not participate in
+        SessionSummary summary = mock(SessionSummary.class);
+        when(summary.getId()).thenReturn(9L);
+        when(summary.getVersion()).thenReturn(4L, 4L, 5L);
+        when(summary.getCallerParticipations()).thenReturn(0L);
+        List<SessionSummary> page = Collections.singletonList(summary);
+
+        // Act: Compute the ETag twice, then once the session was written
+        String eTag = sessionService.getCollectionETag(page, null);
+        String sameETag = sessionService.getCollectionETag(page, null);
+        String writtenETag = sessionService.getCollectionETag(page, null);
+
+        // Assert: Only the write of the session changes the ETag, without any query
+        assertEquals(eTag, sameETag);
+        assertNotEquals(eTag, writtenETag);
+        verifyNoInteractions(sessionRepository);
+    }
+
+    private static SessionParticipant participant(Long userId) {
+        return () -> userId;
+    }
+}
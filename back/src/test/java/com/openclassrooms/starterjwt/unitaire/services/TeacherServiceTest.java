@@ -1,10 +1,17 @@
 package com.openclassrooms.starterjwt.unitaire.services;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Tag;
@@ -12,12 +19,16 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.repository.TeacherCollectionVersion;
 import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.TeacherVersion;
 import com.openclassrooms.starterjwt.services.TeacherService;
 
 @ExtendWith(MockitoExtension.class)
@@ -54,6 +65,34 @@ public class TeacherServiceTest {
         assertEquals(mockedTeacher, res);
     }
 
+    @Test
+    @Tag("Find")
+    @DisplayName("Test findAllById should resolve every id with one query, in order and without duplicates")
+    void testFindAllById() {
+        // Arrange: Two teachers returned in a different order than requested
+        Teacher first = new Teacher().setId(1L);
+        Teacher second = new Teacher().setId(2L);
+        when(teacherRepository.findAllById(new LinkedHashSet<>(Arrays.asList(2L, 1L)))).thenReturn(Arrays.asList(first, second));
+
+        // Act: Resolve the ids with a duplicate
+        List<Teacher> res = teacherService.findAllById(Arrays.asList(2L, 1L, 2L));
+
+        // Assert: The teachers follow the requested order
+        assertEquals(Arrays.asList(second, first), res);
+    }
+
+    @Test
+    @Tag("Find")
+    @DisplayName("Test findAllById with an unknown id should throw BadRequestException")
+    void testFindAllByIdUnknown() {
+        // Arrange: Only one of the two teachers exists
+        when(teacherRepository.findAllById(new LinkedHashSet<>(Arrays.asList(1L, 3L)))).thenReturn(Collections.singletonList(new Teacher().setId(1L)));
+
+        // Act & Assert: The unknown id is reported
+        BadRequestException exception = assertThrows(BadRequestException.class, () -> teacherService.findAllById(Arrays.asList(1L, 3L)));
+        assertEquals("Unknown teacher ids: [3]", exception.getMessage());
+    }
+
     @Test
     @Tag("Find")
     @DisplayName("Test findAll should return a list of all teachers")
@@ -70,4 +109,44 @@ public class TeacherServiceTest {
         verify(teacherRepository).findAll();
         assertEquals(teachers, res);
     }
-}
\ No newline at end of file
+
+    @Test
+    @Tag("Find")
+    @DisplayName("Test getETag should combine the teacher id and last update")
+    void testGetETag() {
+        // Arrange: The teacher was last updated at a known instant
+        LocalDateTime updatedAt = LocalDateTime.of(2024, 1, 2, 3, 4, 5);
+        TeacherVersion version = mock(TeacherVersion.class);
+        when(version.getUpdatedAt()).thenReturn(updatedAt);
+        when(teacherRepository.findVersionById(456L)).thenReturn(Optional.of(version));
+
+        // Act & Assert: The ETag carries the update instant in milliseconds
+        long millis = updatedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        assertEquals("456-" + millis, teacherService.getETag(456L));
+    }
+
+    @Test
+    @Tag("Find")
+    @DisplayName("Test getETag of an unknown teacher should return null")
+    void testGetETagNotFound() {
+        // Arrange: The teacher does not exist
+        when(teacherRepository.findVersionById(456L)).thenReturn(Optional.empty());
+
+        // Act & Assert: No ETag is computed
+        assertNull(teacherService.getETag(456L));
+    }
+
+    @Test
+    @Tag("Find")
+    @DisplayName("Test getCollectionETag of an empty table should not fail")
+    void testGetCollectionETagEmpty() {
+        // Arrange: No teacher has been created yet
+        TeacherCollectionVersion version = mock(TeacherCollectionVersion.class);
+        when(version.getCount()).thenReturn(0L);
+        when(version.getMaxId()).thenReturn(0L);
+        when(teacherRepository.findCollectionVersion()).thenReturn(version);
+
+        // Act & Assert: The missing last update counts as zero
+        assertEquals("0-0-0", teacherService.getCollectionETag());
+    }
+}
@@ -1,8 +1,14 @@
 package com.openclassrooms.starterjwt.unitaire.services;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Tag;
@@ -10,12 +16,17 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.services.EmailBloomFilter;
+import com.openclassrooms.starterjwt.security.services.UserDetailsCache;
 import com.openclassrooms.starterjwt.services.UserService;
 
 @ExtendWith(MockitoExtension.class)
@@ -24,6 +35,12 @@ public class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private UserDetailsCache userDetailsCache;
+
+    @Mock
+    private EmailBloomFilter emailBloomFilter;
+
     // Create the service instance with mocked dependencies
     @InjectMocks
     private UserService userService;
@@ -46,8 +63,10 @@ public class UserServiceTest {
         // Act: Call the delete method
         userService.delete(mockId);
         
-        // Assert: Verify that the user was deleted by ID
+        // Assert: Verify that the user was deleted by ID and its principal evicted
         verify(userRepository).deleteById(mockId);
+        verify(userDetailsCache).evictById(mockId);
+        verify(emailBloomFilter).recordDeletion();
     }
 
     @Test
@@ -65,4 +84,48 @@ public class UserServiceTest {
         verify(userRepository).findById(mockId);
         assertEquals(mockedUser, res);
     }
-}
\ No newline at end of file
+
+    @Test
+    @Tag("Find")
+    @DisplayName("Test findAllById should resolve every id with one query, in order and without duplicates")
+    void testFindAllById() {
+        // Arrange: Two users returned in a different order than requested
+        User first = new User("first@test.com", "First", "User", "password", false);
+        first.setId(1L);
+        User second = new User("second@test.com", "Second", "User", "password", false);
+        second.setId(2L);
+        when(userRepository.findAllById(new LinkedHashSet<>(Arrays.asList(2L, 1L)))).thenReturn(Arrays.asList(first, second));
+
+        // Act: Resolve the ids with a duplicate
+        List<User> res = userService.findAllById(Arrays.asList(2L, 1L, 2L));
+
+        // Assert: The users follow the requested order
+        assertEquals(Arrays.asList(second, first), res);
+    }
+
+    @Test
+    @Tag("Find")
+    @DisplayName("Test findAllById with an unknown id should throw BadRequestException")
+    void testFindAllByIdUnknown() {
+        // Arrange: Only one of the two users exists
+        User first = new User("first@test.com", "First", "User", "password", false);
+        first.setId(1L);
+        when(userRepository.findAllById(new LinkedHashSet<>(Arrays.asList(1L, 3L)))).thenReturn(Collections.singletonList(first));
+
+        // Act & Assert: The unknown id is reported
+        BadRequestException exception = assertThrows(BadRequestException.class, () -> userService.findAllById(Arrays.asList(1L, 3L)));
+        assertEquals("Unknown user ids: [3]", exception.getMessage());
+    }
+
+    @Test
+    @Tag("Find")
+    @DisplayName("Test findAllById without ids should not query the database")
+    void testFindAllByIdEmpty() {
+        // Act: Resolve an empty list
+        List<User> res = userService.findAllById(Collections.emptyList());
+
+        // Assert: No user and no query
+        assertTrue(res.isEmpty());
+        verify(userRepository, never()).findAllById(any());
+    }
+}